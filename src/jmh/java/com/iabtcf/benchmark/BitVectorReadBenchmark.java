@@ -0,0 +1,138 @@
+package com.iabtcf.benchmark;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.iabtcf.ByteBitVector;
+
+/**
+ * Compares the word backed readers of ByteBitVector with a reader that assembles every value a
+ * byte at a time, as ByteBitVector did before it was backed by 64 bit words.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BitVectorReadBenchmark {
+    private static final int LENGTH = 512;
+
+    @Param({"byte", "word"})
+    public String backing;
+
+    private BitReader bbv;
+
+    @Setup
+    public void setup() {
+        byte[] buffer = new byte[LENGTH];
+        new Random(42).nextBytes(buffer);
+        bbv = "word".equals(backing) ? new ByteBitVector(buffer)::readBits : new ByteReader(buffer);
+    }
+
+    /**
+     * Reads the fixed size core header fields.
+     */
+    @Benchmark
+    public long header() {
+        return bbv.readBits(0, 6) + bbv.readBits(6, 36) + bbv.readBits(42, 36) + bbv.readBits(78, 12)
+                + bbv.readBits(90, 12) + bbv.readBits(102, 6) + bbv.readBits(108, 12) + bbv.readBits(120, 12)
+                + bbv.readBits(132, 6) + bbv.readBits(152, 24) + bbv.readBits(176, 24) + bbv.readBits(213, 16);
+    }
+
+    /**
+     * Walks range entries, a 1 bit range flag followed by one or two 16 bit vendor ids.
+     */
+    @Benchmark
+    public long rangeEntries() {
+        long sum = 0;
+        int offset = 0;
+        int end = LENGTH * 8 - 33;
+        while (offset < end) {
+            boolean isRange = bbv.readBits(offset++, 1) != 0;
+            sum += bbv.readBits(offset, 16);
+            offset += 16;
+            if (isRange) {
+                sum += bbv.readBits(offset, 16);
+                offset += 16;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Reads 36 bit fields at every offset using the generic reader.
+     */
+    @Benchmark
+    public long genericReads() {
+        long sum = 0;
+        for (int offset = 0; offset < LENGTH * 8 - 36; offset += 7) {
+            sum += bbv.readBits(offset, 36);
+        }
+        return sum;
+    }
+
+    @FunctionalInterface
+    private interface BitReader {
+        long readBits(int offset, int width);
+    }
+
+    /**
+     * Reads the bytes covering a field one at a time and shifts the field out of them.
+     */
+    private static final class ByteReader implements BitReader {
+        private final byte[] buffer;
+
+        ByteReader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public long readBits(int offset, int width) {
+            int startByte = offset >> 3;
+            int nbits = (offset & 7) + width;
+            int nbytes = (nbits + 7) >> 3;
+            if (startByte + nbytes > buffer.length) {
+                throw new IndexOutOfBoundsException("offset " + offset + " width " + width);
+            }
+
+            long value = 0;
+            for (int i = 0; i < nbytes; i++) {
+                value = value << 8 | (buffer[startByte + i] & 0xFF);
+            }
+            return value >>> ((nbytes << 3) - nbits) & (-1L >>> (64 - width));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.iabtcf.benchmark;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.iabtcf.ByteBitVector;
+import com.iabtcf.decoder.TCString;
+import com.iabtcf.utils.IntIterable;
+
+/**
+ * Decodes bitfield encoded vendor consents and legitimate interests with many vendors, and reads
+ * the vendor consent bitfield from an already decoded vector.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BitfieldDecodeBenchmark {
+    private static final int HEADER_LENGTH = 213;
+
+    @Param({"100", "1000", "3000"})
+    public int maxVendorId;
+
+    private String consentString;
+    private ByteBitVector bbv;
+
+    private static int append(BitSet bits, int offset, int value, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if ((value >>> i & 1) == 1) {
+                bits.set(offset);
+            }
+            offset++;
+        }
+        return offset;
+    }
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        BitSet bits = new BitSet();
+        append(bits, 0, 2, 6);
+        int offset = HEADER_LENGTH;
+
+        // bitfield encoded vendor consents and legitimate interests
+        for (int section = 0; section < 2; section++) {
+            offset = append(bits, offset, maxVendorId, 16);
+            offset = append(bits, offset, 0, 1);
+            for (int i = 0; i < maxVendorId; i++) {
+                offset = append(bits, offset, random.nextInt(2), 1);
+            }
+        }
+
+        // no publisher restrictions
+        offset = append(bits, offset, 0, 12);
+
+        byte[] bytes = new byte[(offset + 7) / 8];
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            bytes[i >> 3] |= 0x80 >>> (i & 7);
+        }
+        consentString = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        bbv = new ByteBitVector(bytes);
+    }
+
+    @Benchmark
+    public Object readBitSet() {
+        return bbv.readBitSet(HEADER_LENGTH + 17, maxVendorId);
+    }
+
+    @Benchmark
+    public Object vendorConsent() {
+        return TCString.decode(consentString).getVendorConsent();
+    }
+
+    @Benchmark
+    public boolean containsVendors() {
+        IntIterable vendorConsent = TCString.decode(consentString).getVendorConsent();
+        return vendorConsent.contains(1) && vendorConsent.contains(maxVendorId / 2)
+                || vendorConsent.contains(maxVendorId);
+    }
+
+    @Benchmark
+    public Object vendorLegitimateInterest() {
+        return TCString.decode(consentString).getVendorLegitimateInterest();
+    }
+
+    @Benchmark
+    public Object purposes() {
+        TCString model = TCString.decode(consentString);
+        model.getPurposesConsent();
+        return model.getPurposesLITransparency();
+    }
+}
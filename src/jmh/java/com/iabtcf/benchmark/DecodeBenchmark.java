@@ -0,0 +1,102 @@
+package com.iabtcf.benchmark;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.iabtcf.decoder.TCString;
+
+/**
+ * Decodes a consent string from a String, which is decoded on demand, and from a byte[], which is
+ * decoded up front into an array backed vector, and reads its fields.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DecodeBenchmark {
+    public String consentString =
+            "COrEAV4OrXx94ACABBENAHCIAD-AAAAAAACAAxAAAAgAIAwgAgAAAAEAgQAAAAAEAYQAQAAAACAAAABAAA"
+                    + ".IBAgAAAgAIAwgAgAAAAEAAAACA.QAagAQAgAIAwgA.cAAAAAAAITg=";
+
+    @Param({"string", "bytes"})
+    public String source;
+
+    private byte[] bytes;
+
+    @Setup
+    public void setup() {
+        bytes = consentString.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private TCString decode() {
+        return "bytes".equals(source) ? TCString.decode(bytes, 0, bytes.length) : TCString.decode(consentString);
+    }
+
+    @Benchmark
+    public void header(Blackhole bh) {
+        TCString model = decode();
+        bh.consume(model.getVersion());
+        bh.consume(model.getLastUpdated());
+        bh.consume(model.getCmpId());
+        bh.consume(model.getVendorListVersion());
+    }
+
+    @Benchmark
+    public void allFields(Blackhole bh) {
+        TCString model = decode();
+        bh.consume(model.getVersion());
+        bh.consume(model.getCreated());
+        bh.consume(model.getLastUpdated());
+        bh.consume(model.getCmpId());
+        bh.consume(model.getCmpVersion());
+        bh.consume(model.getConsentScreen());
+        bh.consume(model.getConsentLanguage());
+        bh.consume(model.getVendorListVersion());
+        bh.consume(model.getTcfPolicyVersion());
+        bh.consume(model.getPurposesConsent());
+        bh.consume(model.getPurposesLITransparency());
+        bh.consume(model.getSpecialFeatureOptIns());
+        bh.consume(model.getPublisherCC());
+        bh.consume(model.getVendorConsent());
+        bh.consume(model.getVendorLegitimateInterest());
+        bh.consume(model.getPublisherRestrictions());
+        bh.consume(model.getAllowedVendors());
+        bh.consume(model.getDisclosedVendors());
+        bh.consume(model.getPubPurposesConsent());
+    }
+}
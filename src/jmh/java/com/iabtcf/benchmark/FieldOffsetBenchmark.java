@@ -0,0 +1,75 @@
+package com.iabtcf.benchmark;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.iabtcf.Base64UrlDecoder;
+import com.iabtcf.ByteBitVector;
+import com.iabtcf.FieldDefs;
+
+/**
+ * Resolves the offsets of static and dynamic core segment fields.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FieldOffsetBenchmark {
+    public String segment = "COrEAV4OrXx94ACABBENAHCIAD-AAAAAAACAAxAAAAgAIAwgAgAAAAEAgQAAAAAEAYQAQAAAACAAAABAAA";
+
+    private byte[] bytes;
+    private ByteBitVector bbv;
+
+    @Setup
+    public void setup() {
+        bytes = Base64UrlDecoder.decode(segment);
+        bbv = new ByteBitVector(bytes);
+    }
+
+    @Benchmark
+    public int staticOffsets() {
+        return FieldDefs.CORE_CMP_ID.getOffset(bbv)
+                + FieldDefs.CORE_VENDOR_LIST_VERSION.getOffset(bbv)
+                + FieldDefs.CORE_PUBLISHER_CC.getOffset(bbv)
+                + FieldDefs.CORE_VENDOR_MAX_VENDOR_ID.getOffset(bbv);
+    }
+
+    @Benchmark
+    public int dynamicOffsets() {
+        ByteBitVector vector = new ByteBitVector(bytes);
+        return FieldDefs.CORE_VENDOR_LI_MAX_VENDOR_ID.getOffset(vector)
+                + FieldDefs.CORE_PUB_RESTRICTION_ENTRY.getOffset(vector);
+    }
+}
@@ -0,0 +1,153 @@
+package com.iabtcf.benchmark;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.iabtcf.decoder.TCString;
+
+/**
+ * Decodes range encoded vendor consents and publisher restrictions with many entries, and vendor
+ * consents made of a single range covering every vendor id.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RangeDecodeBenchmark {
+    private static final int HEADER_LENGTH = 213;
+
+    @Param({"100", "2000"})
+    public int entries;
+
+    private String consentString;
+    private String fullRangeString;
+
+    private static int append(BitSet bits, int offset, int value, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if ((value >>> i & 1) == 1) {
+                bits.set(offset);
+            }
+            offset++;
+        }
+        return offset;
+    }
+
+    /**
+     * Appends a range of alternating single and range entries.
+     */
+    private int appendRange(BitSet bits, int offset) {
+        offset = append(bits, offset, entries, 12);
+        for (int i = 0; i < entries; i++) {
+            boolean isRange = (i & 1) == 1;
+            offset = append(bits, offset, isRange ? 1 : 0, 1);
+            offset = append(bits, offset, 3 * i + 1, 16);
+            if (isRange) {
+                offset = append(bits, offset, 3 * i + 2, 16);
+            }
+        }
+        return offset;
+    }
+
+    private static String encode(BitSet bits, int length) {
+        byte[] bytes = new byte[(length + 7) / 8];
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            bytes[i >> 3] |= 0x80 >>> (i & 7);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Returns a consent string whose vendor consents are the single range [1, 65535].
+     */
+    private static String fullRange() {
+        BitSet bits = new BitSet();
+        append(bits, 0, 2, 6);
+        int offset = HEADER_LENGTH;
+
+        offset = append(bits, offset, 65535, 16);
+        offset = append(bits, offset, 1, 1);
+        offset = append(bits, offset, 1, 12);
+        offset = append(bits, offset, 1, 1);
+        offset = append(bits, offset, 1, 16);
+        offset = append(bits, offset, 65535, 16);
+
+        // no legitimate interests and no publisher restrictions
+        offset = append(bits, offset, 0, 16);
+        offset = append(bits, offset, 0, 1);
+        offset = append(bits, offset, 0, 12);
+        return encode(bits, offset);
+    }
+
+    @Setup
+    public void setup() {
+        BitSet bits = new BitSet();
+        append(bits, 0, 2, 6);
+        int offset = HEADER_LENGTH;
+
+        // range encoded vendor consents and legitimate interests
+        for (int section = 0; section < 2; section++) {
+            offset = append(bits, offset, 3 * entries, 16);
+            offset = append(bits, offset, 1, 1);
+            offset = appendRange(bits, offset);
+        }
+
+        // a single publisher restriction
+        offset = append(bits, offset, 1, 12);
+        offset = append(bits, offset, 1, 6);
+        offset = append(bits, offset, 1, 2);
+        offset = appendRange(bits, offset);
+
+        consentString = encode(bits, offset);
+        fullRangeString = fullRange();
+    }
+
+    @Benchmark
+    public Object vendorConsent() {
+        return TCString.decode(consentString).getVendorConsent();
+    }
+
+    @Benchmark
+    public Object vendorConsentFullRange() {
+        return TCString.decode(fullRangeString).getVendorConsent();
+    }
+
+    @Benchmark
+    public Object publisherRestrictions() {
+        return TCString.decode(consentString).getPublisherRestrictions();
+    }
+}
@@ -0,0 +1,129 @@
+package com.iabtcf.benchmark;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.iabtcf.ByteBitVector;
+import com.iabtcf.utils.BitVectorIntIterable;
+import com.iabtcf.utils.IntIterable;
+import com.iabtcf.utils.IntIterableUtils;
+import com.iabtcf.utils.IntIterator;
+import com.iabtcf.utils.RangeIntIterable;
+
+/**
+ * Computes "vendor consent or vendor legitimate interest, minus disallowed vendors" and "does the
+ * bidder set intersect the allowed vendors" over decoded bitfield vendor sections, with set
+ * algebra on IntIterables and with the HashSet based approach it replaces.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SetAlgebraBenchmark {
+    @Param({"100", "1000"})
+    public int maxVendorId;
+
+    private IntIterable consent;
+    private IntIterable legitimateInterest;
+    private IntIterable disallowed;
+    private IntIterable bidders;
+
+    private IntIterable bitfield(Random random) {
+        byte[] bytes = new byte[(maxVendorId + 7) / 8];
+        random.nextBytes(bytes);
+        return new BitVectorIntIterable(new ByteBitVector(bytes), 0, maxVendorId, 1);
+    }
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        consent = bitfield(random);
+        legitimateInterest = bitfield(random);
+        disallowed = RangeIntIterable.builder().add(maxVendorId / 4, maxVendorId / 2).build();
+
+        BitSet b = new BitSet();
+        for (int i = 0; i < 10; i++) {
+            b.set(maxVendorId / 4 + random.nextInt(maxVendorId / 4));
+        }
+        RangeIntIterable.Builder builder = RangeIntIterable.builder();
+        b.stream().forEach(builder::add);
+        bidders = builder.build();
+    }
+
+    @Benchmark
+    public int unionMinusHashSet() {
+        Set<Integer> s = IntIterableUtils.toSet(consent);
+        s.addAll(IntIterableUtils.toSet(legitimateInterest));
+        s.removeAll(IntIterableUtils.toSet(disallowed));
+        return s.size();
+    }
+
+    @Benchmark
+    public Object unionMinus() {
+        return IntIterableUtils.andNot(IntIterableUtils.or(consent, legitimateInterest), disallowed);
+    }
+
+    @Benchmark
+    public int unionMinusView() {
+        int n = 0;
+        IntIterable allowed = IntIterableUtils.andNotView(IntIterableUtils.orView(consent, legitimateInterest),
+                disallowed);
+        for (IntIterator i = allowed.intIterator(); i.hasNext(); i.nextInt()) {
+            n++;
+        }
+        return n;
+    }
+
+    @Benchmark
+    public boolean intersectsHashSet() {
+        Set<Integer> s = IntIterableUtils.toSet(consent);
+        s.removeAll(IntIterableUtils.toSet(disallowed));
+        for (int bidder : bidders) {
+            if (s.contains(bidder)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean intersects() {
+        return IntIterableUtils.intersects(bidders, IntIterableUtils.andNotView(consent, disallowed));
+    }
+}
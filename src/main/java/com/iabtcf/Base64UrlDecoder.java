@@ -0,0 +1,284 @@
+package com.iabtcf;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Arrays;
+
+/**
+ * A table driven base64url decoder specialized for TC strings.
+ *
+ * Unlike {@link java.util.Base64.Decoder}, the decoder reads the characters directly from the
+ * source CharSequence, avoiding the intermediate byte[] copy of the input, and writes the decoded
+ * bytes into a caller supplied buffer. Padding is optional and ignored when present.
+ */
+public final class Base64UrlDecoder {
+    private static final int[] DECODE_TABLE = new int[256];
+
+    static {
+        Arrays.fill(DECODE_TABLE, -1);
+        for (int i = 0; i < 26; i++) {
+            DECODE_TABLE['A' + i] = i;
+            DECODE_TABLE['a' + i] = 26 + i;
+        }
+        for (int i = 0; i < 10; i++) {
+            DECODE_TABLE['0' + i] = 52 + i;
+        }
+        DECODE_TABLE['-'] = 62;
+        DECODE_TABLE['_'] = 63;
+    }
+
+    private Base64UrlDecoder() {
+    }
+
+    /**
+     * Returns the 6 bit value of a base64url character or -1 if the character is not part of the
+     * base64url alphabet.
+     */
+    public static int sextet(char c) {
+        return c < DECODE_TABLE.length ? DECODE_TABLE[c] : -1;
+    }
+
+    /**
+     * Returns the index following the last non padding character of src[start, end).
+     */
+    static int unpaddedEnd(CharSequence src, int start, int end) {
+        int limit = Math.max(start, end - 2);
+        while (end > limit && src.charAt(end - 1) == '=') {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * Returns the number of bytes encoded by src[start, end).
+     *
+     * @throws IllegalArgumentException if the number of characters is not a valid base64 length
+     */
+    public static int decodedLength(CharSequence src, int start, int end) {
+        return decodedLength(unpaddedEnd(src, start, end) - start);
+    }
+
+    private static int decodedLength(int nchars) {
+        int rem = nchars & 3;
+        if (rem == 1) {
+            throw new IllegalArgumentException(
+                    String.format("invalid base64 length %d", nchars));
+        }
+
+        return (nchars >> 2) * 3 + (rem == 0 ? 0 : rem - 1);
+    }
+
+    /**
+     * Checks that src[start, end) is a valid base64url encoding without decoding it.
+     *
+     * @throws IllegalArgumentException if the number of characters is not a valid base64 length or
+     *         a character is not part of the base64url alphabet
+     */
+    public static void validate(CharSequence src, int start, int end) {
+        end = unpaddedEnd(src, start, end);
+        decodedLength(end - start);
+        validateUnpadded(src, start, end);
+    }
+
+    /**
+     * Checks that every character of src[start, end), which must not contain padding, is part of the
+     * base64url alphabet.
+     */
+    static void validateUnpadded(CharSequence src, int start, int end) {
+        final int[] table = DECODE_TABLE;
+        // same folding as decodeUnpadded: invalid characters set bits of the high byte
+        int sextets = 0;
+
+        for (int i = start; i < end; i++) {
+            char c = src.charAt(i);
+            sextets |= table[c & 0xFF] | c >> 8 << 24;
+        }
+
+        if ((sextets & 0xFF000000) != 0) {
+            throw invalidCharacter(src, start, end);
+        }
+    }
+
+    /**
+     * Decodes the base64url encoded characters into a newly-allocated byte array.
+     */
+    public static byte[] decode(CharSequence src) {
+        return decode(src, 0, src.length());
+    }
+
+    /**
+     * Decodes the base64url encoded characters src[start, end) into a newly-allocated byte array.
+     */
+    public static byte[] decode(CharSequence src, int start, int end) {
+        end = unpaddedEnd(src, start, end);
+        byte[] dst = new byte[decodedLength(end - start)];
+        decodeUnpadded(src, start, end, dst, 0);
+        return dst;
+    }
+
+    /**
+     * Decodes the base64url encoded characters src[start, end) into dst starting at dstOffset.
+     * 
+     * @return the number of bytes written
+     */
+    public static int decode(CharSequence src, int start, int end, byte[] dst, int dstOffset) {
+        end = unpaddedEnd(src, start, end);
+        decodedLength(end - start);
+        return decodeUnpadded(src, start, end, dst, dstOffset) - dstOffset;
+    }
+
+    /**
+     * Decodes src[start, end), which must not contain padding, into dst starting at dp. Returns the
+     * offset following the last byte written.
+     */
+    static int decodeUnpadded(CharSequence src, int start, int end, byte[] dst, int dp) {
+        final int[] table = DECODE_TABLE;
+        int sp = start;
+        int quartetsEnd = start + ((end - start) & ~3);
+        // invalid input is detected once per call: characters outside of the alphabet make the
+        // decoded quartet negative and non latin1 characters are folded into the unused high byte
+        int quartets = 0;
+
+        for (; sp < quartetsEnd; sp += 4, dp += 3) {
+            char c0 = src.charAt(sp);
+            char c1 = src.charAt(sp + 1);
+            char c2 = src.charAt(sp + 2);
+            char c3 = src.charAt(sp + 3);
+            int bits = table[c0 & 0xFF] << 18
+                    | table[c1 & 0xFF] << 12
+                    | table[c2 & 0xFF] << 6
+                    | table[c3 & 0xFF];
+            quartets |= bits | (c0 | c1 | c2 | c3) >> 8 << 24;
+
+            dst[dp] = (byte) (bits >> 16);
+            dst[dp + 1] = (byte) (bits >> 8);
+            dst[dp + 2] = (byte) bits;
+        }
+
+        switch (end - sp) {
+            case 2: {
+                char c0 = src.charAt(sp);
+                char c1 = src.charAt(sp + 1);
+                int bits = table[c0 & 0xFF] << 6 | table[c1 & 0xFF];
+                quartets |= bits | (c0 | c1) >> 8 << 24;
+                dst[dp++] = (byte) (bits >> 4);
+                break;
+            }
+            case 3: {
+                char c0 = src.charAt(sp);
+                char c1 = src.charAt(sp + 1);
+                char c2 = src.charAt(sp + 2);
+                int bits = table[c0 & 0xFF] << 12 | table[c1 & 0xFF] << 6 | table[c2 & 0xFF];
+                quartets |= bits | (c0 | c1 | c2) >> 8 << 24;
+                dst[dp++] = (byte) (bits >> 10);
+                dst[dp++] = (byte) (bits >> 2);
+                break;
+            }
+            default:
+                break;
+        }
+
+        if ((quartets & 0xFF000000) != 0) {
+            throw invalidCharacter(src, start, end);
+        }
+
+        return dp;
+    }
+
+    /**
+     * Decodes src[start, end), which must not contain padding, into the big-endian words of a
+     * {@link ByteBitVector} starting at byte dp. The bytes written must be zero and must be followed
+     * by a word. Returns the offset following the last byte written.
+     */
+    static int decodeUnpadded(CharSequence src, int start, int end, long[] dst, int dp) {
+        final int[] table = DECODE_TABLE;
+        int sp = start;
+        int quartetsEnd = start + ((end - start) & ~3);
+        // invalid input is detected as in decodeUnpadded(CharSequence, int, int, byte[], int)
+        int quartets = 0;
+
+        for (; sp < quartetsEnd; sp += 4, dp += 3) {
+            char c0 = src.charAt(sp);
+            char c1 = src.charAt(sp + 1);
+            char c2 = src.charAt(sp + 2);
+            char c3 = src.charAt(sp + 3);
+            int bits = table[c0 & 0xFF] << 18
+                    | table[c1 & 0xFF] << 12
+                    | table[c2 & 0xFF] << 6
+                    | table[c3 & 0xFF];
+            quartets |= bits | (c0 | c1 | c2 | c3) >> 8 << 24;
+            putBytes(dst, dp, bits & 0xFFFFFF, 3);
+        }
+
+        switch (end - sp) {
+            case 2: {
+                char c0 = src.charAt(sp);
+                char c1 = src.charAt(sp + 1);
+                int bits = table[c0 & 0xFF] << 6 | table[c1 & 0xFF];
+                quartets |= bits | (c0 | c1) >> 8 << 24;
+                putBytes(dst, dp++, bits >> 4 & 0xFF, 1);
+                break;
+            }
+            case 3: {
+                char c0 = src.charAt(sp);
+                char c1 = src.charAt(sp + 1);
+                char c2 = src.charAt(sp + 2);
+                int bits = table[c0 & 0xFF] << 12 | table[c1 & 0xFF] << 6 | table[c2 & 0xFF];
+                quartets |= bits | (c0 | c1 | c2) >> 8 << 24;
+                putBytes(dst, dp, bits >> 2 & 0xFFFF, 2);
+                dp += 2;
+                break;
+            }
+            default:
+                break;
+        }
+
+        if ((quartets & 0xFF000000) != 0) {
+            throw invalidCharacter(src, start, end);
+        }
+
+        return dp;
+    }
+
+    /**
+     * Stores the nbytes low bytes of value as the bytes [dp, dp + nbytes) of the big-endian words.
+     */
+    private static void putBytes(long[] dst, int dp, long value, int nbytes) {
+        int index = dp >> 3;
+        int shift = 64 - ((nbytes + (dp & 7)) << 3);
+        if (shift >= 0) {
+            dst[index] |= value << shift;
+        } else {
+            dst[index] |= value >>> -shift;
+            dst[index + 1] |= value << (64 + shift);
+        }
+    }
+
+    private static IllegalArgumentException invalidCharacter(CharSequence src, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (sextet(src.charAt(i)) < 0) {
+                return new IllegalArgumentException(
+                        String.format("invalid base64 character %s at index %d", src.charAt(i), i));
+            }
+        }
+        return new IllegalArgumentException(String.format("invalid base64 characters at index %d", from));
+    }
+}
@@ -0,0 +1,188 @@
+package com.iabtcf;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * A sequential reader over a ByteBitVector.
+ *
+ * The cursor keeps up to 64 bits of read-ahead in a window that is refilled a few bytes at a time,
+ * so consecutive reads are a shift of the window instead of a random access read of the vector.
+ * This suits sections that can only be parsed in order, such as range entries and publisher
+ * restrictions.
+ */
+public final class BitCursor {
+    /**
+     * The number of bytes made readable ahead of the cursor at once.
+     */
+    private static final int READ_AHEAD = 96;
+
+    private final ByteBitVector bbv;
+    // the next unread bits, left aligned
+    private long window;
+    private int available;
+    private int nextByte;
+    private int position;
+    // the bytes [readableStart, readableEnd) are known to be readable
+    private int readableStart;
+    private int readableEnd;
+
+    /**
+     * Creates a cursor positioned at offset.
+     */
+    public BitCursor(ByteBitVector bbv, int offset) {
+        this.bbv = bbv;
+        seek(offset);
+    }
+
+    /**
+     * Returns the offset of the next bit to be read.
+     */
+    public int position() {
+        return position;
+    }
+
+    /**
+     * Moves the cursor to offset.
+     */
+    public void seek(int offset) {
+        if (offset < 0) {
+            throw new IndexOutOfBoundsException("Negative offset " + offset);
+        }
+
+        window = 0;
+        available = 0;
+        nextByte = offset >> 3;
+        position = offset & ~7;
+        if (nextByte < readableStart || nextByte > readableEnd) {
+            readableStart = nextByte;
+            readableEnd = nextByte;
+        }
+
+        int bitPos = offset & 7;
+        if (bitPos != 0) {
+            refill();
+            if (available < bitPos) {
+                throw new IndexOutOfBoundsException("Offset " + offset + " out of bounds");
+            }
+            consume(bitPos);
+        }
+    }
+
+    /**
+     * Advances the cursor by nbits.
+     */
+    public void skip(int nbits) {
+        if (nbits > available && nbits <= ByteBitVector.MAX_READ_WIDTH) {
+            refill();
+        }
+
+        if (nbits <= available) {
+            consume(nbits);
+        } else {
+            seek(position + nbits);
+        }
+    }
+
+    public boolean readBits1() {
+        return readBits(1) != 0;
+    }
+
+    public int readBits2() {
+        return (int) readBits(2);
+    }
+
+    public int readBits6() {
+        return (int) readBits(6);
+    }
+
+    public int readBits12() {
+        return (int) readBits(12);
+    }
+
+    public int readBits16() {
+        return (int) readBits(16);
+    }
+
+    /**
+     * Reads the next width bits as an unsigned value, 0 < width <= {@link ByteBitVector#MAX_READ_WIDTH}.
+     *
+     * @throws IndexOutOfBoundsException if the vector ends before width bits
+     */
+    public long readBits(int width) {
+        assert width > 0 && width <= ByteBitVector.MAX_READ_WIDTH;
+
+        if (available < width) {
+            refill();
+            if (available < width) {
+                throw new IndexOutOfBoundsException("Bits [" + position + ", " + (position + width)
+                        + ") out of bounds");
+            }
+        }
+
+        long value = window >>> (64 - width);
+        consume(width);
+        return value;
+    }
+
+    private void consume(int nbits) {
+        // a shift by 64 is a no-op, clear the window in two steps
+        window = window << (nbits >> 1) << (nbits - (nbits >> 1));
+        available -= nbits;
+        position += nbits;
+    }
+
+    /**
+     * Tops up the window with whole bytes. At least 57 bits are available afterwards, unless the
+     * vector ends first.
+     */
+    private void refill() {
+        int nbytes = (64 - available) >> 3;
+        if (nextByte + nbytes > readableEnd && !readAhead(nbytes)) {
+            // near the end of the vector, load whatever is left byte by byte
+            nbytes = 0;
+            while (available + (nbytes << 3) <= 56 && bbv.ensureReadable(nextByte + nbytes, 1)) {
+                nbytes++;
+            }
+        }
+
+        if (nbytes > 0) {
+            window |= bbv.bytesAt(nextByte, nbytes) << (64 - available - (nbytes << 3));
+            nextByte += nbytes;
+            available += nbytes << 3;
+        }
+    }
+
+    /**
+     * Makes the bytes ahead of the cursor readable in chunks, so the vector is not consulted on
+     * every refill. Returns false if fewer than nbytes remain.
+     */
+    private boolean readAhead(int nbytes) {
+        if (bbv.ensureReadable(nextByte, READ_AHEAD)) {
+            readableEnd = nextByte + READ_AHEAD;
+        } else if (bbv.ensureReadable(nextByte, nbytes)) {
+            readableEnd = nextByte + nbytes;
+        } else {
+            return false;
+        }
+        readableStart = nextByte;
+        return true;
+    }
+}
@@ -24,62 +24,153 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.BitSet;
 
-public class ByteBitVector {
-    private byte[] buffer;
-    private int isrpos;
-    private final InputStream is;
+/**
+ * A bit vector over big-endian 64 bit words.
+ *
+ * Every read is a shift and mask over at most two adjacent words. The words are followed by a zero
+ * word so that the second word can always be loaded, which keeps the read path free of alignment
+ * branches.
+ *
+ * The class is final so that every read site sees a single implementation, whether the bytes come
+ * from an array, a base64url string or a stream. The bytes below {@code readable} can be read
+ * without further checks, which is the whole vector for an array backed vector. Vectors whose
+ * bytes are decoded or read on demand are filled by a {@link ByteSource} when a read reaches past
+ * that region, so the compare against {@code readable} is both the bounds check of an array backed
+ * vector and the refill check of the others.
+ */
+public final class ByteBitVector {
+    /**
+     * The maximum number of bits that can be read with {@link #readBits(int, int)}.
+     */
+    public static final int MAX_READ_WIDTH = 57;
+
+    /**
+     * The number of bits {@link #readBitSet(int, int, int)} reads with a single {@link #readBits(int, int)}.
+     */
+    private static final int BITSET_CHUNK = 56;
+
+    // byte i is stored in the bits 56 - 8 * (i % 8) and up of words[i / 8]
+    long[] words;
+    // the number of leading bytes of the vector that are readable
+    int readable;
+    private final ByteSource source;
     final LengthOffsetCache cache;
 
     public ByteBitVector(InputStream is) {
-        this.buffer = new byte[4096];
-        this.is = is;
-        this.isrpos = 0;
-        cache = new LengthOffsetCache(this);
+        this(new long[wordsFor(4096)], 0, new InputStreamSource(is));
     }
 
     public ByteBitVector(byte[] buffer) {
-        this.buffer = buffer;
-        this.isrpos = buffer.length;
-        this.is = null;
+        this(new long[wordsFor(buffer.length)], buffer.length, null);
+        putBytes(buffer, 0, 0, buffer.length);
+    }
+
+    ByteBitVector(long[] words, int readable, ByteSource source) {
+        this.words = words;
+        this.readable = readable;
+        this.source = source;
         cache = new LengthOffsetCache(this);
     }
 
-    private void ensureCapacity(int length) {
-        if (buffer.length >= length) {
-            return;
-        }
+    /**
+     * Creates a vector over the base64url encoded characters src[start, end), which are decoded as
+     * they are read. The characters must not change for the life time of the vector.
+     *
+     * @throws IllegalArgumentException if src[start, end) is not valid base64url
+     */
+    public static ByteBitVector fromBase64(CharSequence src, int start, int end) {
+        LazyBase64Source source = new LazyBase64Source(src, start, end);
+        return new ByteBitVector(new long[wordsFor(source.decodedLength())], 0, source);
+    }
 
-        byte[] b = new byte[length * 2];
-        System.arraycopy(buffer, 0, b, 0, buffer.length);
-        buffer = b;
+    /**
+     * Creates a vector over the bytes encoded by the base64url characters src[start, end), which
+     * are decoded up front.
+     *
+     * @throws IllegalArgumentException if src[start, end) is not valid base64url
+     */
+    public static ByteBitVector decodeBase64(CharSequence src, int start, int end) {
+        int length = Base64UrlDecoder.decodedLength(src, start, end);
+        ByteBitVector bbv = new ByteBitVector(new long[wordsFor(length)], length, null);
+        Base64UrlDecoder.decodeUnpadded(src, start, Base64UrlDecoder.unpaddedEnd(src, start, end), bbv.words, 0);
+        return bbv;
     }
 
-    private boolean ensureReadable(int offset, int length) {
-        int tlength = offset + length;
-        int n;
-        int rem = tlength - isrpos;
+    /**
+     * Returns the number of words holding length bytes, including the trailing zero word.
+     */
+    static int wordsFor(int length) {
+        return ((length + 7) >> 3) + 1;
+    }
 
-        if (tlength <= isrpos) {
-            return true;
-        }
+    ByteSource source() {
+        return source;
+    }
 
-        ensureCapacity(tlength);
+    /**
+     * Stores bytes[from, from + length) as the bytes [index, index + length) of the vector, which
+     * must not have been stored before.
+     */
+    void putBytes(byte[] bytes, int from, int index, int length) {
+        long[] w = words;
+        int i = 0;
+        // leading bytes up to a word boundary
+        for (; i < length && ((index + i) & 7) != 0; i++) {
+            w[(index + i) >> 3] |= (bytes[from + i] & 0xFFL) << (56 - (((index + i) & 7) << 3));
+        }
+        // whole words
+        for (; i + 8 <= length; i += 8) {
+            int j = from + i;
+            w[(index + i) >> 3] = (bytes[j] & 0xFFL) << 56
+                    | (bytes[j + 1] & 0xFFL) << 48
+                    | (bytes[j + 2] & 0xFFL) << 40
+                    | (bytes[j + 3] & 0xFFL) << 32
+                    | (bytes[j + 4] & 0xFFL) << 24
+                    | (bytes[j + 5] & 0xFFL) << 16
+                    | (bytes[j + 6] & 0xFFL) << 8
+                    | (bytes[j + 7] & 0xFFL);
+        }
+        for (; i < length; i++) {
+            w[(index + i) >> 3] |= (bytes[from + i] & 0xFFL) << (56 - (((index + i) & 7) << 3));
+        }
+    }
 
-        try {
-            while (rem > 0) {
-                n = is.read(buffer, isrpos, rem);
-                if (n == -1) {
-                    return false;
-                }
+    /**
+     * Makes the bytes [offset, offset + length) available for reading. Returns false if the
+     * underlying source ended before offset + length.
+     */
+    boolean ensureReadable(int offset, int length) {
+        return offset + length <= readable || source != null && source.fill(this, offset, length);
+    }
 
-                isrpos += n;
-                rem -= n;
-            }
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+    /**
+     * Makes the bits [offset, offset + length) readable up front, so that decoding errors of the
+     * underlying source are reported here instead of by a later read.
+     *
+     * @throws IndexOutOfBoundsException if the vector ends before offset + length
+     */
+    public void requireReadable(int offset, int length) {
+        if (length > 0 && !ensureReadable(offset >> 3, ((offset & 7) + length + 7) >> 3)) {
+            throw new IndexOutOfBoundsException("Bits [" + offset + ", " + (offset + length) + ") out of bounds");
         }
+    }
 
-        return true;
+    /**
+     * Returns the nbytes bytes starting at index as an unsigned value, 0 < nbytes <= 8. The bytes
+     * must have been made readable.
+     */
+    long bytesAt(int index, int nbytes) {
+        return word(index << 3) >>> (64 - (nbytes << 3));
+    }
+
+    /**
+     * Returns the 64 bits starting at offset, left aligned. Bits past the last word read as 0.
+     */
+    private long word(int offset) {
+        int index = offset >> 6;
+        int shift = offset & 63;
+        // shifting by 1 and then 63 - shift clears the second word when shift is 0
+        return words[index] << shift | words[index + 1] >>> 1 >>> (63 - shift);
     }
 
     public boolean readBits1(FieldDefs field) {
@@ -88,12 +179,7 @@ public class ByteBitVector {
     }
 
     public boolean readBits1(int offset) {
-        int startByte = offset >> 3;
-        int bitPos = offset % 8;
-
-        ensureReadable(startByte, 1);
-
-        return ((buffer[startByte] >>> (7 - bitPos)) & 1) == 1;
+        return readBits(offset, 1) != 0;
     }
 
     public byte readBits2(FieldDefs field) {
@@ -102,7 +188,7 @@ public class ByteBitVector {
     }
 
     public byte readBits2(int offset) {
-        return readByteBits(offset, 2);
+        return (byte) readBits(offset, 2);
     }
 
     public byte readBits3(FieldDefs field) {
@@ -111,7 +197,7 @@ public class ByteBitVector {
     }
 
     public byte readBits3(int offset) {
-        return readByteBits(offset, 3);
+        return (byte) readBits(offset, 3);
     }
 
     public byte readBits6(FieldDefs field) {
@@ -120,36 +206,7 @@ public class ByteBitVector {
     }
 
     public byte readBits6(int offset) {
-        int startByte = offset >> 3;
-        int bitPos = offset % 8;
-        int n = 8 - bitPos;
-
-        if (n < 6) {
-            ensureReadable(startByte, 2);
-            return (byte) (unsafeReadLsb(buffer[startByte], 6 - n, n)
-                    | unsafeReadMsb(buffer[startByte + 1], 0, 6 - n));
-        } else {
-            ensureReadable(startByte, 1);
-            return unsafeReadMsb(buffer[startByte], bitPos, 6);
-        }
-    }
-
-    /**
-     * When nbits <= 8
-     */
-    private byte readByteBits(int offset, int nbits) {
-        int startByte = offset >> 3;
-        int bitPos = offset % 8;
-        int n = 8 - bitPos;
-
-        if (n < nbits) {
-            ensureReadable(startByte, 2);
-            return (byte) (unsafeReadLsb(buffer[startByte], nbits - n, n)
-                    | unsafeReadMsb(buffer[startByte + 1], 0, nbits - n));
-        } else {
-            ensureReadable(startByte, 1);
-            return unsafeReadMsb(buffer[startByte], bitPos, nbits);
-        }
+        return (byte) readBits(offset, 6);
     }
 
     public int readBits12(FieldDefs field) {
@@ -158,20 +215,7 @@ public class ByteBitVector {
     }
 
     public int readBits12(int offset) {
-        int startByte = offset >> 3;
-        int bitPos = offset % 8;
-        int n = 8 - bitPos;
-
-        if (n < 4) {
-            ensureReadable(startByte, 3);
-            return (unsafeReadLsb(buffer[startByte], bitPos, n) & 0xFF) << 4
-                    | (buffer[startByte + 1] & 0xFF) << (bitPos - 4)
-                    | (unsafeReadMsb(buffer[startByte + 2], 0, bitPos - 4) & 0xFF);
-        } else {
-            ensureReadable(startByte, 2);
-            return (unsafeReadLsb(buffer[startByte], bitPos, n) & 0xFF) << 4
-                    | (unsafeReadMsb(buffer[startByte + 1], 0, 4 + bitPos) & 0xFF);
-        }
+        return (int) readBits(offset, 12);
     }
 
     public int readBits16(FieldDefs field) {
@@ -180,20 +224,7 @@ public class ByteBitVector {
     }
 
     public int readBits16(int offset) {
-        int startByte = offset >> 3;
-        int bitPos = offset % 8;
-        int n = 8 - bitPos;
-
-        if (n < 8) {
-            ensureReadable(startByte, 3);
-            return ((unsafeReadLsb(buffer[startByte], bitPos, n) & 0xFF) << 8)
-                    | (buffer[startByte + 1] & 0xFF) << bitPos
-                    | (unsafeReadMsb(buffer[startByte + 2], 0, bitPos) & 0xFF);
-        } else {
-            ensureReadable(startByte, 2);
-            return (buffer[startByte] & 0xFF) << 8
-                    | (buffer[startByte + 1] & 0xFF);
-        }
+        return (int) readBits(offset, 16);
     }
 
     public int readBits24(FieldDefs field) {
@@ -202,22 +233,7 @@ public class ByteBitVector {
     }
 
     public int readBits24(int offset) {
-        int startByte = offset >> 3;
-        int bitPos = offset % 8;
-        int n = 8 - bitPos;
-
-        if (n < 8) {
-            ensureReadable(startByte, 4);
-            return ((unsafeReadLsb(buffer[startByte], bitPos, n) & 0xFF) << 16)
-                    | (buffer[startByte + 1] & 0xFF) << (8 + bitPos)
-                    | (buffer[startByte + 2] & 0xFF) << bitPos
-                    | (unsafeReadMsb(buffer[startByte + 3], 0, bitPos) & 0xFF);
-        } else {
-            ensureReadable(startByte, 3);
-            return (buffer[startByte] & 0xFF) << 16
-                    | (buffer[startByte + 1] & 0xFF) << 8
-                    | (buffer[startByte + 2] & 0xFF);
-        }
+        return (int) readBits(offset, 24);
     }
 
     public long readBits36(FieldDefs field) {
@@ -226,45 +242,56 @@ public class ByteBitVector {
     }
 
     public long readBits36(int offset) {
-        int startByte = offset >> 3;
-        int bitPos = offset % 8;
-        int n = 8 - bitPos; // # bits to read
-
-        if (n < 4) {
-            ensureReadable(startByte, 6);
-            return ((long) unsafeReadLsb(buffer[startByte], bitPos, n) & 0xFF) << 28
-                    | ((long) buffer[startByte + 1] & 0xFF) << (20 + bitPos)
-                    | ((long) buffer[startByte + 2] & 0xFF) << (12 + bitPos)
-                    | ((long) buffer[startByte + 3] & 0xFF) << (4 + bitPos)
-                    | ((long) buffer[startByte + 4] & 0xFF) << (bitPos - 4)
-                    | ((long) unsafeReadMsb(buffer[startByte + 5], 0, bitPos - 4) & 0xFF);
-        } else {
-            ensureReadable(startByte, 5);
-            return ((long) unsafeReadLsb(buffer[startByte], bitPos, n) & 0xFF) << 28
-                    | ((long) buffer[startByte + 1] & 0xFF) << (20 + bitPos)
-                    | ((long) buffer[startByte + 2] & 0xFF) << (12 + bitPos)
-                    | ((long) buffer[startByte + 3] & 0xFF) << (4 + bitPos)
-                    | ((long) unsafeReadMsb(buffer[startByte + 4], 0, 4 + bitPos) & 0xFF);
-        }
+        return readBits(offset, 36);
     }
 
-    public BitSet readBitSet(int offset, int length) {
-        // TODO(mk): can we read larger chunks at a time?
-        BitSet bs = new BitSet(length);
-        for (int i = 0; i < length; i++) {
-            if (readBits1(offset + i)) {
-                bs.set(i);
-            }
+    public long readBits(FieldDefs field) {
+        return readBits(field.getOffset(this), field.getLength(this));
+    }
+
+    /**
+     * Reads the width bits starting at offset as an unsigned value, 0 < width <= {@link #MAX_READ_WIDTH}.
+     *
+     * @throws IndexOutOfBoundsException if the vector ends before offset + width
+     */
+    public long readBits(int offset, int width) {
+        assert width > 0 && width <= MAX_READ_WIDTH;
+
+        if (offset + width + 7 >> 3 > readable) {
+            requireReadable(offset, width);
         }
-        return bs;
+        return word(offset) >>> (64 - width);
     }
 
-    private byte unsafeReadMsb(byte from, int offset, int length) {
-        return length == 0 ? 0 : (byte) ((from >>> ((8 - length) - offset)) & ((1 << length) - 1));
+    public BitSet readBitSet(int offset, int length) {
+        return readBitSet(offset, length, 0);
     }
 
-    private byte unsafeReadLsb(byte from, int offset, int length) {
-        return length == 0 ? from : (byte) ((from & ((1 << length) - 1)) << offset);
+    /**
+     * Reads the length bits starting at offset into a BitSet, where the bit at offset + i is stored
+     * at index fromIndex + i.
+     *
+     * The bits are read {@link #BITSET_CHUNK} at a time, reversed into the little-endian bit order of
+     * {@link BitSet#valueOf(long[])} and shifted into place in its backing words.
+     */
+    public BitSet readBitSet(int offset, int length, int fromIndex) {
+        if (length == 0) {
+            return new BitSet();
+        }
+
+        long[] words = new long[(fromIndex + length + 63) >>> 6];
+        for (int i = 0; i < length; i += BITSET_CHUNK) {
+            int n = Math.min(BITSET_CHUNK, length - i);
+            long chunk = Long.reverse(readBits(offset + i, n)) >>> (64 - n);
+
+            int index = fromIndex + i;
+            int shift = index & 63;
+            words[index >>> 6] |= chunk << shift;
+            if (shift + n > 64) {
+                words[(index >>> 6) + 1] |= chunk >>> (64 - shift);
+            }
+        }
+        return BitSet.valueOf(words);
     }
 
     // exploring writing bits...
@@ -290,4 +317,56 @@ public class ByteBitVector {
             buffer[startByte] |= (byte) (value << (8 - 6 - bitPos));
         }
     }
+
+    /**
+     * Reads the bytes of an InputStream as the reads reach them. The vector grows as needed and the
+     * stream is never read past the furthest byte requested.
+     */
+    private static final class InputStreamSource implements ByteSource {
+        private final InputStream is;
+        private byte[] chunk = new byte[0];
+
+        InputStreamSource(InputStream is) {
+            this.is = is;
+        }
+
+        @Override
+        public boolean fill(ByteBitVector bbv, int offset, int length) {
+            int tlength = offset + length;
+            int n;
+            int rem = tlength - bbv.readable;
+
+            ensureCapacity(bbv, tlength);
+            if (chunk.length < rem) {
+                chunk = new byte[Math.max(rem, 2 * chunk.length)];
+            }
+
+            try {
+                while (rem > 0) {
+                    n = is.read(chunk, 0, rem);
+                    if (n == -1) {
+                        return false;
+                    }
+
+                    bbv.putBytes(chunk, 0, bbv.readable, n);
+                    bbv.readable += n;
+                    rem -= n;
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+
+            return true;
+        }
+
+        private static void ensureCapacity(ByteBitVector bbv, int length) {
+            if (bbv.words.length >= wordsFor(length)) {
+                return;
+            }
+
+            long[] w = new long[wordsFor(length * 2)];
+            System.arraycopy(bbv.words, 0, w, 0, bbv.words.length);
+            bbv.words = w;
+        }
+    }
 }
@@ -0,0 +1,34 @@
+package com.iabtcf;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Fills the buffer of a {@link ByteBitVector} whose bytes are produced on demand. Sources are only
+ * called for reads past the vector's readable region.
+ */
+interface ByteSource {
+
+    /**
+     * Makes the bytes buffer[offset, offset + length) of the vector readable, growing its buffer if
+     * needed. Returns false if the source ends before offset + length.
+     */
+    boolean fill(ByteBitVector bbv, int offset, int length);
+}
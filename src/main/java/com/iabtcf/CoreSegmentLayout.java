@@ -0,0 +1,290 @@
+package com.iabtcf;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static com.iabtcf.FieldDefs.CORE_NUM_PUB_RESTRICTION;
+import static com.iabtcf.FieldDefs.CORE_PUB_RESTRICTION_ENTRY;
+import static com.iabtcf.FieldDefs.CORE_VENDOR_BITRANGE_FIELD;
+import static com.iabtcf.FieldDefs.CORE_VENDOR_IS_RANGE_ENCODING;
+import static com.iabtcf.FieldDefs.CORE_VENDOR_LI_BITRANGE_FIELD;
+import static com.iabtcf.FieldDefs.CORE_VENDOR_LI_IS_RANGE_ENCODING;
+import static com.iabtcf.FieldDefs.CORE_VENDOR_LI_MAX_VENDOR_ID;
+import static com.iabtcf.FieldDefs.CORE_VENDOR_MAX_VENDOR_ID;
+import static com.iabtcf.FieldDefs.END_VENDOR_ID;
+import static com.iabtcf.FieldDefs.IS_A_RANGE;
+import static com.iabtcf.FieldDefs.NUM_ENTRIES;
+import static com.iabtcf.FieldDefs.PURPOSE_ID;
+import static com.iabtcf.FieldDefs.RESTRICTION_TYPE;
+import static com.iabtcf.FieldDefs.START_OR_ONLY_VENDOR_ID;
+
+/**
+ * The bit offsets of the dynamically sized sections of a core segment.
+ *
+ * The layout is computed by a sequential pass over the vendor consent, vendor legitimate interest
+ * and publisher restriction sections. The pass is incremental: it stops after the section a caller
+ * asks for, so a malformed later section doesn't affect the earlier ones. The pass only reads the
+ * IsARange bit of every range entry to find where a section ends, and records where the entries of
+ * every range start and how many there are, which is all a decoder needs to read them. The offsets
+ * and lengths of the corresponding {@link FieldDefs} are stored in the vector's cache, so resolving
+ * them does not recurse through the previous fields.
+ */
+public final class CoreSegmentLayout {
+    public static final int VENDOR_CONSENT = 0;
+    public static final int VENDOR_LEGITIMATE_INTEREST = 1;
+
+    private static final int NUM_VENDOR_SECTIONS = 2;
+    private static final int PUBLISHER_RESTRICTIONS = NUM_VENDOR_SECTIONS;
+
+    private static final int MAX_VENDOR_ID_LENGTH = CORE_VENDOR_MAX_VENDOR_ID.getLength(null);
+    private static final int VENDOR_HEADER_LENGTH = MAX_VENDOR_ID_LENGTH + CORE_VENDOR_IS_RANGE_ENCODING.getLength(null);
+    private static final int PURPOSE_ID_LENGTH = PURPOSE_ID.getLength(null);
+    private static final int RESTRICTION_TYPE_LENGTH = RESTRICTION_TYPE.getLength(null);
+    private static final int NUM_ENTRIES_LENGTH = NUM_ENTRIES.getLength(null);
+    private static final int IS_A_RANGE_LENGTH = IS_A_RANGE.getLength(null);
+    private static final int SINGLE_ENTRY_LENGTH = IS_A_RANGE_LENGTH + START_OR_ONLY_VENDOR_ID.getLength(null);
+    private static final int RANGE_ENTRY_LENGTH = SINGLE_ENTRY_LENGTH + END_VENDOR_ID.getLength(null);
+
+    private final ByteBitVector bbv;
+
+    private final int[] maxVendorIds = new int[NUM_VENDOR_SECTIONS];
+    private final boolean[] isRangeEncodings = new boolean[NUM_VENDOR_SECTIONS];
+    private final int[] fieldOffsets = new int[NUM_VENDOR_SECTIONS];
+    private final int[] fieldEnds = new int[NUM_VENDOR_SECTIONS];
+    private final int[] fieldEntryCounts = new int[NUM_VENDOR_SECTIONS];
+
+    private int publisherRestrictionsEnd;
+    private int[] restrictionOffsets;
+    private int[] restrictionEntryCounts;
+
+    // the number of sections whose header, respectively whole section, has been scanned
+    private int headers;
+    private int scanned;
+    // the offset following the last scanned section
+    private int position;
+
+    private CoreSegmentLayout(ByteBitVector bbv) {
+        this.bbv = bbv;
+        this.position = CORE_VENDOR_MAX_VENDOR_ID.getOffset(bbv);
+    }
+
+    /**
+     * Returns the layout of the core segment. Its sections are scanned when they are first used.
+     */
+    public static CoreSegmentLayout of(ByteBitVector bbv) {
+        return new CoreSegmentLayout(bbv);
+    }
+
+    /**
+     * Scans every section of the core segment and returns its layout.
+     */
+    public static CoreSegmentLayout scan(ByteBitVector bbv) {
+        CoreSegmentLayout layout = new CoreSegmentLayout(bbv);
+        layout.ensureScanned(PUBLISHER_RESTRICTIONS);
+        return layout;
+    }
+
+    /**
+     * Scans the sections preceding section and the MaxVendorId and IsRangeEncoding fields of the
+     * vendor section.
+     */
+    private void ensureHeader(int section) {
+        if (headers > section) {
+            return;
+        }
+        if (section > 0) {
+            ensureScanned(section - 1);
+        }
+
+        maxVendorIds[section] = bbv.readBits16(position);
+        isRangeEncodings[section] = bbv.readBits1(position + MAX_VENDOR_ID_LENGTH);
+        fieldOffsets[section] = position + VENDOR_HEADER_LENGTH;
+        headers = section + 1;
+    }
+
+    /**
+     * Scans every section up to and including section.
+     */
+    private void ensureScanned(int section) {
+        while (scanned <= section) {
+            if (scanned == PUBLISHER_RESTRICTIONS) {
+                scanPublisherRestrictions();
+            } else {
+                ensureHeader(scanned);
+                scanVendors(scanned);
+            }
+            scanned++;
+        }
+    }
+
+    private void scanVendors(int section) {
+        BitCursor cursor = new BitCursor(bbv, fieldOffsets[section]);
+        if (isRangeEncodings[section]) {
+            fieldEntryCounts[section] = scanRange(cursor);
+        } else {
+            cursor.skip(maxVendorIds[section]);
+        }
+        fieldEnds[section] = cursor.position();
+        position = fieldEnds[section];
+
+        LengthOffsetCache cache = bbv.cache;
+        if (section == VENDOR_CONSENT) {
+            cache.put(CORE_VENDOR_BITRANGE_FIELD, fieldOffsets[section], fieldEnds[section] - fieldOffsets[section]);
+            cache.put(CORE_VENDOR_LI_MAX_VENDOR_ID, position, CORE_VENDOR_LI_MAX_VENDOR_ID.getLength(bbv));
+        } else {
+            cache.put(CORE_VENDOR_LI_IS_RANGE_ENCODING, fieldOffsets[section] - 1,
+                    CORE_VENDOR_LI_IS_RANGE_ENCODING.getLength(bbv));
+            cache.put(CORE_VENDOR_LI_BITRANGE_FIELD, fieldOffsets[section],
+                    fieldEnds[section] - fieldOffsets[section]);
+            cache.put(CORE_NUM_PUB_RESTRICTION, position, CORE_NUM_PUB_RESTRICTION.getLength(bbv));
+        }
+    }
+
+    private void scanPublisherRestrictions() {
+        BitCursor cursor = new BitCursor(bbv, position);
+        int numRestrictions = cursor.readBits12();
+
+        int[] offsets = new int[numRestrictions];
+        int[] counts = new int[numRestrictions];
+        for (int i = 0; i < numRestrictions; i++) {
+            offsets[i] = cursor.position();
+            cursor.skip(PURPOSE_ID_LENGTH + RESTRICTION_TYPE_LENGTH);
+            counts[i] = scanRange(cursor);
+        }
+
+        publisherRestrictionsEnd = cursor.position();
+        restrictionOffsets = offsets;
+        restrictionEntryCounts = counts;
+
+        int numPubRestrictionLength = CORE_NUM_PUB_RESTRICTION.getLength(bbv);
+        // the length of the restriction entries includes the number of restrictions
+        bbv.cache.put(CORE_PUB_RESTRICTION_ENTRY, position + numPubRestrictionLength,
+                publisherRestrictionsEnd - position);
+    }
+
+    /**
+     * Moves the cursor past the range at the cursor and returns its number of entries.
+     */
+    private static int scanRange(BitCursor cursor) {
+        int count = cursor.readBits12();
+        for (int i = 0; i < count; i++) {
+            cursor.skip(cursor.readBits1() ? RANGE_ENTRY_LENGTH - IS_A_RANGE_LENGTH
+                    : SINGLE_ENTRY_LENGTH - IS_A_RANGE_LENGTH);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the max vendor id of a vendor section.
+     */
+    public int getMaxVendorId(int section) {
+        ensureHeader(section);
+        return maxVendorIds[section];
+    }
+
+    /**
+     * Returns whether a vendor section is range encoded.
+     */
+    public boolean isRangeEncoding(int section) {
+        ensureHeader(section);
+        return isRangeEncodings[section];
+    }
+
+    /**
+     * Returns the offset of the bit field, or the offset of the number of entries when range
+     * encoded, of a vendor section.
+     */
+    public int getFieldOffset(int section) {
+        ensureHeader(section);
+        return fieldOffsets[section];
+    }
+
+    /**
+     * Returns the offset following a vendor section.
+     */
+    public int getFieldEnd(int section) {
+        ensureScanned(section);
+        return fieldEnds[section];
+    }
+
+    /**
+     * Returns the number of range entries of a vendor section.
+     */
+    public int getEntryCount(int section) {
+        ensureScanned(section);
+        return fieldEntryCounts[section];
+    }
+
+    /**
+     * Returns the offset of the first range entry of a range encoded vendor section.
+     */
+    public int getEntriesOffset(int section) {
+        ensureHeader(section);
+        return fieldOffsets[section] + NUM_ENTRIES_LENGTH;
+    }
+
+    /**
+     * Returns the offset of the number of publisher restrictions.
+     */
+    public int getPublisherRestrictionsOffset() {
+        ensureScanned(VENDOR_LEGITIMATE_INTEREST);
+        return fieldEnds[VENDOR_LEGITIMATE_INTEREST];
+    }
+
+    /**
+     * Returns the offset following the publisher restrictions.
+     */
+    public int getPublisherRestrictionsEnd() {
+        ensureScanned(PUBLISHER_RESTRICTIONS);
+        return publisherRestrictionsEnd;
+    }
+
+    /**
+     * Returns the number of publisher restrictions.
+     */
+    public int getPublisherRestrictionCount() {
+        ensureScanned(PUBLISHER_RESTRICTIONS);
+        return restrictionOffsets.length;
+    }
+
+    /**
+     * Returns the offset of the purpose id of the nth publisher restriction.
+     */
+    public int getPublisherRestrictionOffset(int n) {
+        ensureScanned(PUBLISHER_RESTRICTIONS);
+        return restrictionOffsets[n];
+    }
+
+    /**
+     * Returns the number of range entries of the nth publisher restriction.
+     */
+    public int getPublisherRestrictionEntryCount(int n) {
+        ensureScanned(PUBLISHER_RESTRICTIONS);
+        return restrictionEntryCounts[n];
+    }
+
+    /**
+     * Returns the offset of the first range entry of the nth publisher restriction.
+     */
+    public int getPublisherRestrictionEntriesOffset(int n) {
+        ensureScanned(PUBLISHER_RESTRICTIONS);
+        return restrictionOffsets[n] + PURPOSE_ID_LENGTH + RESTRICTION_TYPE_LENGTH + NUM_ENTRIES_LENGTH;
+    }
+}
@@ -20,18 +20,21 @@ package com.iabtcf;
  * #L%
  */
 
-import java.util.function.Function;
+import java.util.function.ToIntFunction;
 
 /**
  * This enum defines all V1 and V2 consent string fields with their offsets and lengths. Since some
  * fields have dynamic values, the offset and length methods are a function of ByteBitVector
  * allowing a dynamic field access to the consent string.
  * 
- * The enum takes care to cache the lengths and offsets of fields when appropriate. Whenever
- * possible, static field lengths and offsets are cached by the enum using the MemoizingFunction.
- * Due to the dynamic nature of some fields, computing the offsets and lengths can only be done at
- * runtime when a consent string is parsed. For such fields, their values are cached by the
- * ByteBitVector used to parse the consent string.
+ * The enum takes care to cache the lengths and offsets of fields when appropriate. The lengths and
+ * offsets of static fields are computed once, when the enum is initialized, and stored in tables
+ * shared by all vectors. Due to the dynamic nature of some fields, computing the offsets and
+ * lengths can only be done at runtime when a consent string is parsed. For such fields, their
+ * values are cached by the ByteBitVector used to parse the consent string.
+ * 
+ * The shared tables are written during class initialization only, so fields may be resolved
+ * concurrently by any number of threads, each decoding its own vectors.
  * 
  * All fields following a dynamic field are treated as a dynamic field.
  */
@@ -85,8 +88,8 @@ public enum FieldDefs {
     PPTC_NUM_CUSTOM_PURPOSES(6),
     PPTC_CUSTOM_PURPOSES_CONSENT(new LengthSupplier() {
         @Override
-        public Integer apply(ByteBitVector t) {
-            return Integer.valueOf(t.readBits6(PPTC_NUM_CUSTOM_PURPOSES.getOffset(t)));
+        public int applyAsInt(ByteBitVector t) {
+            return t.readBits6(PPTC_NUM_CUSTOM_PURPOSES.getOffset(t));
         }
 
         @Override
@@ -96,7 +99,7 @@ public enum FieldDefs {
     }),
     PPTC_CUSTOM_PURPOSES_LI_TRANSPARENCY(new LengthSupplier() {
         @Override
-        public Integer apply(ByteBitVector t) {
+        public int applyAsInt(ByteBitVector t) {
             // same length as PPTC_CUSTOM_PURPOSES_CONSENT
             return PPTC_CUSTOM_PURPOSES_CONSENT.getLength(t);
         }
@@ -133,10 +136,48 @@ public enum FieldDefs {
     V1_VENDOR_DEFAULT_CONSENT(1, V1_VENDOR_IS_RANGE_ENCODING),
     V1_VENDOR_NUM_ENTRIES(12);
 
-    private OffsetSupplier offset;
-    private LengthSupplier length;
-    private boolean isDynamic = false;
-    private boolean isDynamicInit = false;
+    private final OffsetSupplier offset;
+    private final LengthSupplier length;
+
+    /**
+     * Marks a table entry whose value depends on the consent string.
+     */
+    private static final int DYNAMIC = -1;
+
+    private static final FieldDefs[] VALUES = values();
+    private static final int[] STATIC_LENGTHS = new int[VALUES.length];
+    private static final int[] STATIC_OFFSETS = new int[VALUES.length];
+
+    /**
+     * Dense indexes of the dynamic fields into the per-vector cache, -1 for static fields.
+     */
+    private static final int[] CACHE_INDEXES = new int[VALUES.length];
+
+    /**
+     * The number of dynamic fields.
+     */
+    static final int NUM_DYNAMIC_FIELDS;
+
+    static {
+        int numDynamic = 0;
+
+        // fields only depend on preceding fields, their static values are resolved in order
+        for (FieldDefs field : VALUES) {
+            int i = field.ordinal();
+            STATIC_LENGTHS[i] = DYNAMIC;
+            STATIC_OFFSETS[i] = DYNAMIC;
+            CACHE_INDEXES[i] = -1;
+            if (field.offset.isDynamic() || field.length.isDynamic()) {
+                CACHE_INDEXES[i] = numDynamic++;
+            } else {
+                STATIC_LENGTHS[i] = field.length.applyAsInt(null);
+                if (field.offset != OffsetSupplier.NOT_SUPPORTED) {
+                    STATIC_OFFSETS[i] = field.offset.applyAsInt(null);
+                }
+            }
+        }
+        NUM_DYNAMIC_FIELDS = numDynamic;
+    }
 
     FieldDefs(int length, FieldDefs field) {
         assert field != this;
@@ -170,26 +211,30 @@ public enum FieldDefs {
      * being processed.
      */
     protected boolean isDynamic() {
-        if (!isDynamicInit) {
-            isDynamic = offset.isDynamic() || length.isDynamic();
-            isDynamicInit = true;
-        }
+        return CACHE_INDEXES[ordinal()] >= 0;
+    }
 
-        return isDynamic;
+    /**
+     * Returns the index of the field in the per-vector cache or -1 if the field is static.
+     */
+    int cacheIndex() {
+        return CACHE_INDEXES[ordinal()];
     }
 
     /**
      * Returns the length of the field.
      */
     public int getLength(ByteBitVector bbv) {
-        return bbv.cache.getLength(this, length);
+        int rv = STATIC_LENGTHS[ordinal()];
+        return rv != DYNAMIC ? rv : bbv.cache.getLength(this, length);
     }
 
     /**
      * Returns the offset of the field.
      */
     public int getOffset(ByteBitVector bbv) {
-        return bbv.cache.getOffset(this, offset);
+        int rv = STATIC_OFFSETS[ordinal()];
+        return rv != DYNAMIC ? rv : bbv.cache.getOffset(this, offset);
     }
 
     /**
@@ -199,45 +244,7 @@ public enum FieldDefs {
         return getLength(bbv) + getOffset(bbv);
     }
 
-    /**
-     * The offset of the nth field depends on the length and offset of the nth-1 field. This class
-     * is used to cache static fields to avoid querying parent fields.
-     * 
-     * Both the value and it's dynamic state are cached.
-     */
-    private static abstract class MemoizingFunction
-            implements LengthSupplier, OffsetSupplier, Function<ByteBitVector, Integer> {
-        private boolean dynamicInitialized = false;
-        private boolean isDynamic = false;
-        private Integer value;
-
-        public abstract Integer doCompute(ByteBitVector t);
-
-        @Override
-        public abstract boolean isDynamic();
-
-        @Override
-        public Integer apply(ByteBitVector t) {
-            if (value == null || isDynamicPvt()) {
-                value = doCompute(t);
-
-                return value;
-            } else {
-                return value;
-            }
-        }
-
-        private boolean isDynamicPvt() {
-            if (!dynamicInitialized) {
-                dynamicInitialized = true;
-                isDynamic = isDynamic();
-            }
-
-            return isDynamic;
-        }
-    }
-
-    private interface OffsetSupplier extends Function<ByteBitVector, Integer> {
+    private interface OffsetSupplier extends ToIntFunction<ByteBitVector> {
 
         /**
          * This is used when we don't want a field to support offsets.
@@ -245,7 +252,7 @@ public enum FieldDefs {
         public static final OffsetSupplier NOT_SUPPORTED = new OffsetSupplier() {
 
             @Override
-            public Integer apply(ByteBitVector t) {
+            public int applyAsInt(ByteBitVector t) {
                 throw new UnsupportedOperationException();
             }
 
@@ -262,7 +269,7 @@ public enum FieldDefs {
             return new OffsetSupplier() {
 
                 @Override
-                public Integer apply(ByteBitVector t) {
+                public int applyAsInt(ByteBitVector t) {
                     return offset;
                 }
 
@@ -274,38 +281,36 @@ public enum FieldDefs {
         }
 
         /**
-         * Supplies the offset that's based on the specified field. The offset value is stored to
-         * avoid re-computing.
+         * Supplies the offset that's based on the specified field.
          */
         public static OffsetSupplier from(final FieldDefs thisEnum) {
-            return new MemoizingFunction() {
+            return new OffsetSupplier() {
                 @Override
                 public boolean isDynamic() {
                     return thisEnum.isDynamic();
                 }
 
                 @Override
-                public Integer doCompute(ByteBitVector t) {
+                public int applyAsInt(ByteBitVector t) {
                     return thisEnum.getLength(t) + thisEnum.getOffset(t);
                 }
             };
         }
 
         /**
-         * Supplies the offset that's based on the the fields previous field. The offset value is
-         * stored to avoid re-computing.
+         * Supplies the offset that's based on the the fields previous field.
          */
         public static OffsetSupplier fromPrevious(final FieldDefs thisEnum) {
-            return new MemoizingFunction() {
+            return new OffsetSupplier() {
 
                 @Override
                 public boolean isDynamic() {
-                    return FieldDefs.values()[thisEnum.ordinal() - 1].isDynamic();
+                    return VALUES[thisEnum.ordinal() - 1].isDynamic();
                 }
 
                 @Override
-                public Integer doCompute(ByteBitVector t) {
-                    FieldDefs prevEnum = FieldDefs.values()[thisEnum.ordinal() - 1];
+                public int applyAsInt(ByteBitVector t) {
+                    FieldDefs prevEnum = VALUES[thisEnum.ordinal() - 1];
                     return prevEnum.getLength(t) + prevEnum.getOffset(t);
                 }
             };
@@ -314,7 +319,7 @@ public enum FieldDefs {
         public boolean isDynamic();
     }
 
-    private interface LengthSupplier extends Function<ByteBitVector, Integer> {
+    private interface LengthSupplier extends ToIntFunction<ByteBitVector> {
 
         /**
          * A constant length for static fields.
@@ -323,7 +328,7 @@ public enum FieldDefs {
             return new LengthSupplier() {
 
                 @Override
-                public Integer apply(ByteBitVector t) {
+                public int applyAsInt(ByteBitVector t) {
                     return length;
                 }
 
@@ -342,22 +347,22 @@ public enum FieldDefs {
      */
     private static class PublisherRestrictionUtils {
         public static int calculateBitRangelength(ByteBitVector t, int numPubRestrictionsOffset) {
-            int cptr = numPubRestrictionsOffset;
-            int numPubRestrictions = t.readBits12(numPubRestrictionsOffset);
-            cptr += CORE_NUM_PUB_RESTRICTION.getLength(t);
+            BitCursor cursor = new BitCursor(t, numPubRestrictionsOffset);
+            int numPubRestrictions = cursor.readBits12();
+            int restrictionLength = PURPOSE_ID.getLength(t) + RESTRICTION_TYPE.getLength(t);
 
             for (int i = 0; i < numPubRestrictions; i++) {
-                cptr += (PURPOSE_ID.getLength(t) + RESTRICTION_TYPE.getLength(t));
-                cptr += BitRangeFieldUtils.calculateRangeLength(t, cptr);
+                cursor.skip(restrictionLength);
+                BitRangeFieldUtils.skipRange(cursor, t);
             }
 
-            return cptr - numPubRestrictionsOffset;
+            return cursor.position() - numPubRestrictionsOffset;
         }
 
         public static LengthSupplier lengthSupplier(FieldDefs numPubRestrictionsOffset) {
             return new LengthSupplier() {
                 @Override
-                public Integer apply(ByteBitVector t) {
+                public int applyAsInt(ByteBitVector t) {
                     return calculateBitRangelength(t, numPubRestrictionsOffset.getOffset(t));
                 }
 
@@ -374,17 +379,22 @@ public enum FieldDefs {
      */
     private static class BitRangeFieldUtils {
         public static int calculateRangeLength(ByteBitVector t, int numEntriesOffset) {
-            int cptr = numEntriesOffset;
-            int numEntries = t.readBits12(cptr);
-            cptr += NUM_ENTRIES.getLength(t);
+            return skipRange(new BitCursor(t, numEntriesOffset), t) - numEntriesOffset;
+        }
+
+        /**
+         * Moves the cursor past the range at the cursor and returns the cursor position.
+         */
+        public static int skipRange(BitCursor cursor, ByteBitVector t) {
+            int numEntries = cursor.readBits12();
+            int vendorIdLength = START_OR_ONLY_VENDOR_ID.getLength(t);
+            int endVendorIdLength = END_VENDOR_ID.getLength(t);
 
             for (int i = 0; i < numEntries; i++) {
-                cptr += IS_A_RANGE.getLength(t) + START_OR_ONLY_VENDOR_ID.getLength(t)
-                        + (t.readBits1(cptr) ? END_VENDOR_ID.getLength(t)
-                                : 0);
+                cursor.skip(cursor.readBits1() ? vendorIdLength + endVendorIdLength : vendorIdLength);
             }
 
-            return cptr - numEntriesOffset;
+            return cursor.position();
         }
 
         public static int calculateBitLength(ByteBitVector t, int maxVendorIdOffset) {
@@ -403,7 +413,7 @@ public enum FieldDefs {
         public static LengthSupplier lengthSupplier(FieldDefs isRangeEncoding, FieldDefs maxVendorId) {
             return new LengthSupplier() {
                 @Override
-                public Integer apply(ByteBitVector t) {
+                public int applyAsInt(ByteBitVector t) {
                     return calculateBitRangeLength(t, isRangeEncoding.getOffset(t), maxVendorId.getOffset(t));
                 }
 
@@ -417,7 +427,7 @@ public enum FieldDefs {
         public static LengthSupplier lengthSupplierV1() {
             return new LengthSupplier() {
                 @Override
-                public Integer apply(ByteBitVector t) {
+                public int applyAsInt(ByteBitVector t) {
                     int isRangeEncodingOffset = FieldDefs.V1_VENDOR_IS_RANGE_ENCODING.getOffset(t);
                     if (!t.readBits1(isRangeEncodingOffset)) {
                         return calculateBitLength(t, FieldDefs.V1_VENDOR_MAX_VENDOR_ID.getOffset(t));
@@ -0,0 +1,116 @@
+package com.iabtcf;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Decodes a base64url encoded segment into a {@link ByteBitVector} on demand. Every 4 characters
+ * encode exactly 3 bytes, so a read only decodes the character quartets covering the bytes it
+ * touches. Decoded quartets are cached and the vector's readable region is extended over the
+ * decoded prefix.
+ *
+ * The characters must not change for the life time of the vector. Invalid characters are reported
+ * by the constructor, which checks the alphabet in a single pass without decoding.
+ */
+final class LazyBase64Source implements ByteSource {
+    private final CharSequence src;
+    private final int start;
+    private final int end;
+    private final int length;
+    private final long[] decoded;
+    private final int quartets;
+    // all quartets below prefixQuartet are decoded
+    private int prefixQuartet;
+
+    /**
+     * Creates a source over the base64url encoded characters src[start, end).
+     */
+    LazyBase64Source(CharSequence src, int start, int end) {
+        this.src = src;
+        this.start = start;
+        this.length = Base64UrlDecoder.decodedLength(src, start, end);
+        this.end = Base64UrlDecoder.unpaddedEnd(src, start, end);
+        this.quartets = (this.end - start + 3) >> 2;
+        this.decoded = new long[(quartets + 63) >> 6];
+        Base64UrlDecoder.validateUnpadded(src, start, this.end);
+    }
+
+    /**
+     * Returns the number of bytes encoded by the characters.
+     */
+    int decodedLength() {
+        return length;
+    }
+
+    @Override
+    public boolean fill(ByteBitVector bbv, int offset, int length) {
+        int tlength = offset + length;
+        boolean readable = tlength <= this.length;
+        int q = offset / 3;
+        int qend = Math.min((Math.min(tlength, this.length) + 2) / 3, quartets);
+
+        while (q < qend) {
+            if (isDecoded(q)) {
+                q++;
+                continue;
+            }
+
+            // decode the run of missing quartets with a single call
+            int qrun = q + 1;
+            while (qrun < qend && !isDecoded(qrun)) {
+                qrun++;
+            }
+            decode(bbv, q, qrun);
+            q = qrun;
+        }
+
+        while (prefixQuartet < quartets && isDecoded(prefixQuartet)) {
+            prefixQuartet++;
+        }
+        bbv.readable = Math.min(prefixQuartet * 3, this.length);
+
+        return readable;
+    }
+
+    private boolean isDecoded(int quartet) {
+        return (decoded[quartet >> 6] & (1L << quartet)) != 0;
+    }
+
+    private void decode(ByteBitVector bbv, int fromQuartet, int toQuartet) {
+        int cstart = start + (fromQuartet << 2);
+        int cend = Math.min(start + (toQuartet << 2), end);
+        Base64UrlDecoder.decodeUnpadded(src, cstart, cend, bbv.words, fromQuartet * 3);
+
+        for (int q = fromQuartet; q < toQuartet; q++) {
+            decoded[q >> 6] |= 1L << q;
+        }
+    }
+
+    /**
+     * Returns the number of decoded quartets.
+     */
+    int decodedQuartets() {
+        int n = 0;
+        for (long word : decoded) {
+            n += Long.bitCount(word);
+        }
+        return n;
+    }
+}
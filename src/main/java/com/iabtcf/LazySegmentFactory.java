@@ -24,16 +24,16 @@ import java.io.InputStream;
 import java.util.function.Supplier;
 
 /**
- * Given a ASCII String of the form XXXX.YYYYY.ZZZZ..., this class returns each segment as an
+ * Given a ASCII CharSequence of the form XXXX.YYYYY.ZZZZ..., this class returns each segment as an
  * InputStream by successive invocations of {@link LazySegmentFactory#next()}. The starting
  * offsets of each segment are computed in a lazy manner. That is, the start offsets are
  * resolved recursively by the nth segment querying the nth-1 segment for it's ending location.
  */
 public class LazySegmentFactory {
     private SegmentSupplier sup;
-    private final String src;
+    private final CharSequence src;
 
-    public LazySegmentFactory(String src) {
+    public LazySegmentFactory(CharSequence src) {
         this.src = src;
         sup = new SegmentSupplier();
     }
@@ -45,7 +45,7 @@ public class LazySegmentFactory {
     }
 
     private static class EmptyInputStream extends SegmentInputStream {
-        public static EmptyInputStream INSTANCE = new EmptyInputStream();
+        public static final EmptyInputStream INSTANCE = new EmptyInputStream();
 
         private EmptyInputStream() {
             super("", 0);
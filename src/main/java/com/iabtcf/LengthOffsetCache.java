@@ -20,36 +20,58 @@ package com.iabtcf;
  * #L%
  */
 
-import java.util.EnumMap;
-import java.util.function.Function;
+import java.util.Arrays;
+import java.util.function.ToIntFunction;
 
+/**
+ * Caches the offsets and lengths of the dynamic fields of a vector in a table indexed by
+ * {@link FieldDefs#cacheIndex()}. Static fields are resolved by {@link FieldDefs} and never reach
+ * the cache.
+ */
 class LengthOffsetCache {
+    private static final int UNRESOLVED = -1;
+
     private final ByteBitVector bbv;
-    private final EnumMap<FieldDefs, Integer> lengthCache = new EnumMap<>(FieldDefs.class);
-    private final EnumMap<FieldDefs, Integer> offsetCache = new EnumMap<>(FieldDefs.class);
+
+    /**
+     * The offset of the ith dynamic field is stored at 2i, its length at 2i + 1.
+     */
+    private final int[] cache = new int[2 * FieldDefs.NUM_DYNAMIC_FIELDS];
 
     public LengthOffsetCache(ByteBitVector bbv) {
         this.bbv = bbv;
+        Arrays.fill(cache, UNRESOLVED);
+    }
+
+    public int getLength(FieldDefs field, ToIntFunction<ByteBitVector> f) {
+        return memoize(field, 1, f);
     }
 
-    public Integer getLength(FieldDefs field, Function<ByteBitVector, Integer> f) {
-        return memoize(field, lengthCache, f);
+    public int getOffset(FieldDefs field, ToIntFunction<ByteBitVector> f) {
+        return memoize(field, 0, f);
     }
 
-    public Integer getOffset(FieldDefs field, Function<ByteBitVector, Integer> f) {
-        return memoize(field, offsetCache, f);
+    /**
+     * Stores the offset and length of a dynamic field computed ahead of time, e.g. by a layout
+     * scan.
+     */
+    public void put(FieldDefs field, int offset, int length) {
+        int i = 2 * field.cacheIndex();
+        cache[i] = offset;
+        cache[i + 1] = length;
     }
 
-    private Integer memoize(FieldDefs field, EnumMap<FieldDefs, Integer> cache,
-            Function<ByteBitVector, Integer> f) {
-        if (!field.isDynamic()) {
-            return f.apply(bbv);
+    private int memoize(FieldDefs field, int slot, ToIntFunction<ByteBitVector> f) {
+        int index = field.cacheIndex();
+        if (index < 0) {
+            return f.applyAsInt(bbv);
         }
 
-        Integer rv = cache.get(field);
-        if (rv == null) {
-            rv = f.apply(bbv);
-            cache.put(field, rv);
+        int i = 2 * index + slot;
+        int rv = cache[i];
+        if (rv == UNRESOLVED) {
+            rv = f.applyAsInt(bbv);
+            cache[i] = rv;
         }
 
         return rv;
@@ -28,15 +28,15 @@ import java.io.InputStream;
  * '.'.
  */
 public class SegmentInputStream extends InputStream {
-    private final String src;
+    private final CharSequence src;
     private int rpos;
     private int start;
     private int end = -1;
 
     /**
-     * src must be a base64 (e.g. subset of StandardCharsets.US_ASCII) encoded String.
+     * src must be a base64 (e.g. subset of StandardCharsets.US_ASCII) encoded CharSequence.
      */
-    public SegmentInputStream(String src, int start) {
+    public SegmentInputStream(CharSequence src, int start) {
 
         if (src == null) {
             throw new IllegalArgumentException("src");
@@ -47,7 +47,7 @@ public class SegmentInputStream extends InputStream {
         }
 
         this.src = src;
-        start = rpos = Math.min(start, src.length());
+        this.start = rpos = Math.min(start, src.length());
     }
 
     @Override
@@ -88,12 +88,22 @@ public class SegmentInputStream extends InputStream {
      */
     protected int segmentEnd() {
         if (end == -1) {
-            for (end = rpos; end < src.length() && src.charAt(end) != '.'; end++);
+            end = segmentEnd(src, rpos);
         }
 
         return end;
     }
 
+    /**
+     * Returns the ending location of the segment containing the offset from, that is, the index of
+     * the next '.' or the length of src.
+     */
+    static int segmentEnd(CharSequence src, int from) {
+        int idx = from;
+        for (int length = src.length(); idx < length && src.charAt(idx) != '.'; idx++);
+        return idx;
+    }
+
     /**
      * Returns true if there are additional segments.
      */
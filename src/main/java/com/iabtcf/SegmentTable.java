@@ -0,0 +1,100 @@
+package com.iabtcf;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Records the boundaries of the '.' separated segments of a TC string in a single scan over the
+ * characters. Segments are addressed by index, the core segment being index 0, so that decoders can
+ * work directly on the source characters without creating a String per segment.
+ */
+public final class SegmentTable {
+    // a core segment followed by the disclosed vendors, allowed vendors and publisher TC segments
+    private static final int DEFAULT_CAPACITY = 4;
+
+    private int[] ends = new int[DEFAULT_CAPACITY];
+    private int size;
+
+    private SegmentTable() {
+    }
+
+    /**
+     * Scans src once and records the end offset of every segment. A string without '.' is made of a
+     * single segment, even when empty.
+     */
+    public static SegmentTable scan(CharSequence src) {
+        SegmentTable table = new SegmentTable();
+        int length = src.length();
+        int start = 0;
+
+        do {
+            int end = SegmentInputStream.segmentEnd(src, start);
+            table.add(end);
+            start = end + 1;
+        } while (start <= length);
+
+        return table;
+    }
+
+    private void add(int end) {
+        if (size == ends.length) {
+            int[] grown = new int[ends.length * 2];
+            System.arraycopy(ends, 0, grown, 0, size);
+            ends = grown;
+        }
+        ends[size++] = end;
+    }
+
+    /**
+     * Returns the number of segments.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the offset of the first character of the segment.
+     */
+    public int start(int segment) {
+        checkIndex(segment);
+        return segment == 0 ? 0 : ends[segment - 1] + 1;
+    }
+
+    /**
+     * Returns the offset following the last character of the segment.
+     */
+    public int end(int segment) {
+        checkIndex(segment);
+        return ends[segment];
+    }
+
+    /**
+     * Returns true if the segment contains no characters, e.g. the segment following a trailing '.'.
+     */
+    public boolean isEmpty(int segment) {
+        return start(segment) == end(segment);
+    }
+
+    private void checkIndex(int segment) {
+        if (segment < 0 || segment >= size) {
+            throw new IndexOutOfBoundsException(String.format("segment %d, size %d", segment, size));
+        }
+    }
+}
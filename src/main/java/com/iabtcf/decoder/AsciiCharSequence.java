@@ -0,0 +1,129 @@
+package com.iabtcf.decoder;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.nio.ByteBuffer;
+
+/**
+ * A read-only CharSequence view over ASCII encoded bytes. Bytes are widened to chars without
+ * copying the underlying storage.
+ */
+abstract class AsciiCharSequence implements CharSequence {
+    protected final int offset;
+    protected final int length;
+
+    private AsciiCharSequence(int offset, int length) {
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Returns a view of buf[off, off + len).
+     */
+    static AsciiCharSequence of(byte[] buf, int off, int len) {
+        if (off < 0 || len < 0 || off > buf.length - len) {
+            throw new IndexOutOfBoundsException(
+                    String.format("offset %d, length %d, buffer length %d", off, len, buf.length));
+        }
+
+        return new ByteArrayCharSequence(buf, off, len);
+    }
+
+    /**
+     * Returns a view of the remaining bytes of the buffer. The position and limit of the buffer are
+     * not modified.
+     */
+    static AsciiCharSequence of(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            return new ByteArrayCharSequence(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                    buffer.remaining());
+        }
+
+        return new ByteBufferCharSequence(buffer, buffer.position(), buffer.remaining());
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || start > end || end > length) {
+            throw new IndexOutOfBoundsException(String.format("start %d, end %d, length %d", start, end, length));
+        }
+
+        return slice(offset + start, end - start);
+    }
+
+    protected abstract AsciiCharSequence slice(int offset, int length);
+
+    @Override
+    public String toString() {
+        return new StringBuilder(length).append(this).toString();
+    }
+
+    private static final class ByteArrayCharSequence extends AsciiCharSequence {
+        private final byte[] buf;
+
+        ByteArrayCharSequence(byte[] buf, int offset, int length) {
+            super(offset, length);
+            this.buf = buf;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException(String.format("index %d, length %d", index, length));
+            }
+
+            return (char) (buf[offset + index] & 0xFF);
+        }
+
+        @Override
+        protected AsciiCharSequence slice(int offset, int length) {
+            return new ByteArrayCharSequence(buf, offset, length);
+        }
+    }
+
+    private static final class ByteBufferCharSequence extends AsciiCharSequence {
+        private final ByteBuffer buffer;
+
+        ByteBufferCharSequence(ByteBuffer buffer, int offset, int length) {
+            super(offset, length);
+            this.buffer = buffer;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException(String.format("index %d, length %d", index, length));
+            }
+
+            return (char) (buffer.get(offset + index) & 0xFF);
+        }
+
+        @Override
+        protected AsciiCharSequence slice(int offset, int length) {
+            return new ByteBufferCharSequence(buffer, offset, length);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.iabtcf.decoder;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static com.iabtcf.v2.RestrictionType.NOT_ALLOWED;
+import static com.iabtcf.v2.RestrictionType.REQUIRE_CONSENT;
+import static com.iabtcf.v2.RestrictionType.REQUIRE_LEGITIMATE_INTEREST;
+
+import java.util.BitSet;
+
+import com.iabtcf.v2.PublisherRestrictions;
+import com.iabtcf.v2.RestrictionType;
+
+/**
+ * Decides whether vendors may process personal data for a purpose from the signals of a v2 TC
+ * string: the purpose consent and legitimate interest transparency bits, the vendor consent and
+ * legitimate interest sections, the publisher restrictions and PurposeOneTreatment.
+ *
+ * Every signal is a lookup in the decoded fields of the TC string, so once they are decoded a
+ * decision does not allocate.
+ */
+final class ConsentDecisions {
+    private static final int PURPOSE_ONE = 1;
+
+    private ConsentDecisions() {
+    }
+
+    /**
+     * Returns whether the user consented to the purpose. Purpose 1 was not disclosed to the user
+     * under PurposeOneTreatment, so it has no consent then.
+     */
+    private static boolean hasPurposeConsent(TCString tcString, int purposeId) {
+        return tcString.getPurposesConsent().contains(purposeId)
+                && !(purposeId == PURPOSE_ONE && tcString.getPurposeOneTreatment());
+    }
+
+    /**
+     * Returns whether the purpose was disclosed on the basis of legitimate interest and not objected
+     * to. Purpose 1 may only be processed on the basis of consent.
+     */
+    private static boolean hasPurposeLegitimateInterest(TCString tcString, int purposeId) {
+        return purposeId != PURPOSE_ONE && tcString.getPurposesLITransparency().contains(purposeId);
+    }
+
+    private static boolean allowsConsent(RestrictionType restrictionType) {
+        return restrictionType != NOT_ALLOWED && restrictionType != REQUIRE_LEGITIMATE_INTEREST;
+    }
+
+    private static boolean allowsLegitimateInterest(RestrictionType restrictionType) {
+        return restrictionType != NOT_ALLOWED && restrictionType != REQUIRE_CONSENT;
+    }
+
+    static boolean canProcessWithConsent(TCString tcString, int vendorId, int purposeId) {
+        return hasPurposeConsent(tcString, purposeId) && tcString.hasVendorConsent(vendorId)
+                && allowsConsent(tcString.getPublisherRestrictionIndex().getRestrictionType(vendorId, purposeId));
+    }
+
+    static boolean canProcessWithLegitimateInterest(TCString tcString, int vendorId, int purposeId) {
+        return hasPurposeLegitimateInterest(tcString, purposeId) && tcString.hasVendorLegitimateInterest(vendorId)
+                && allowsLegitimateInterest(
+                        tcString.getPublisherRestrictionIndex().getRestrictionType(vendorId, purposeId));
+    }
+
+    /**
+     * Returns a BitSet with bit i set if vendorIds[i] may process for the purpose on either basis.
+     * The purpose signals are read once and the vendor sections are queried in a batch.
+     */
+    static BitSet canProcess(TCString tcString, int purposeId, int[] vendorIds) {
+        BitSet result = new BitSet(vendorIds.length);
+        boolean consent = hasPurposeConsent(tcString, purposeId);
+        boolean legitimateInterest = hasPurposeLegitimateInterest(tcString, purposeId);
+        if (!consent && !legitimateInterest) {
+            return result;
+        }
+
+        PublisherRestrictions restrictions = tcString.getPublisherRestrictionIndex();
+        if (consent) {
+            BitSet vendors = tcString.getVendorConsent().containsEach(vendorIds);
+            for (int i = vendors.nextSetBit(0); i >= 0; i = vendors.nextSetBit(i + 1)) {
+                if (allowsConsent(restrictions.getRestrictionType(vendorIds[i], purposeId))) {
+                    result.set(i);
+                }
+            }
+        }
+        if (legitimateInterest) {
+            BitSet vendors = tcString.getVendorLegitimateInterest().containsEach(vendorIds);
+            for (int i = vendors.nextSetBit(0); i >= 0; i = vendors.nextSetBit(i + 1)) {
+                if (allowsLegitimateInterest(restrictions.getRestrictionType(vendorIds[i], purposeId))) {
+                    result.set(i);
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,126 @@
+package com.iabtcf.decoder;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.iabtcf.Base64UrlDecoder;
+import com.iabtcf.ByteBitVector;
+import com.iabtcf.FieldDefs;
+import com.iabtcf.SegmentTable;
+import com.iabtcf.v2.SegmentType;
+
+/**
+ * Maps the out-of-band segment types of a TC string to their segments. The directory is built once
+ * when the string is decoded, which checks that every segment is valid base64url. The segment type
+ * of each segment is read from its first character, which holds the 3 bit OOB_SEGMENT_TYPE field,
+ * and the segment is base64 decoded on first access.
+ *
+ * Segments are only decoded lazily when the source is a String, other sources may be mutated or
+ * reused by the caller once decoding returns and are decoded up front.
+ */
+class SegmentDirectory {
+    private static final SegmentType[] TYPES = SegmentType.values();
+
+    static final SegmentDirectory EMPTY = new SegmentDirectory(null);
+
+    private final CharSequence src;
+    private final int[] starts = new int[TYPES.length];
+    private final int[] ends = new int[TYPES.length];
+    private final ByteBitVector[] vectors = new ByteBitVector[TYPES.length];
+
+    private SegmentDirectory(CharSequence src) {
+        this.src = src;
+    }
+
+    /**
+     * Builds a directory from already decoded segments.
+     */
+    static SegmentDirectory of(ByteBitVector... segments) {
+        SegmentDirectory directory = new SegmentDirectory(null);
+        for (ByteBitVector segment : segments) {
+            int type = segment.readBits3(FieldDefs.OOB_SEGMENT_TYPE);
+            if (isOutOfBand(type) && directory.vectors[type] == null) {
+                directory.vectors[type] = segment;
+            }
+        }
+        return directory;
+    }
+
+    /**
+     * Builds a directory from the segments following the core segment of src.
+     */
+    static SegmentDirectory of(CharSequence src, SegmentTable segments) {
+        if (segments.size() < 2) {
+            return EMPTY;
+        }
+
+        SegmentDirectory directory = new SegmentDirectory(src);
+        for (int i = 1; i < segments.size(); i++) {
+            if (segments.isEmpty(i)) {
+                continue;
+            }
+
+            int start = segments.start(i);
+            int end = segments.end(i);
+            Base64UrlDecoder.validate(src, start, end);
+
+            int type = segmentType(src, start);
+            if (isOutOfBand(type) && directory.ends[type] == 0) {
+                directory.starts[type] = start;
+                directory.ends[type] = end;
+
+                if (!(src instanceof String)) {
+                    directory.decode(type);
+                }
+            }
+        }
+        return directory;
+    }
+
+    /**
+     * The segment type is stored in the 3 most significant bits of the first sextet.
+     */
+    private static int segmentType(CharSequence src, int start) {
+        return Base64UrlDecoder.sextet(src.charAt(start)) >>> 3;
+    }
+
+    private static boolean isOutOfBand(int type) {
+        SegmentType segmentType = SegmentType.from(type);
+        return segmentType != SegmentType.DEFAULT && segmentType != SegmentType.INVALID;
+    }
+
+    private ByteBitVector decode(int type) {
+        ByteBitVector vector = TCStringDecoder.vectorFromString(src, starts[type], ends[type]);
+        vectors[type] = vector;
+        return vector;
+    }
+
+    /**
+     * Returns the segment of the given type, or null if the TC string doesn't contain it.
+     */
+    ByteBitVector get(SegmentType segmentType) {
+        int type = segmentType.ordinal();
+        ByteBitVector vector = vectors[type];
+        if (vector == null && ends[type] != 0) {
+            vector = decode(type);
+        }
+        return vector;
+    }
+}
@@ -20,17 +20,46 @@ package com.iabtcf.decoder;
  * #L%
  */
 
+import java.nio.ByteBuffer;
 import java.time.Instant;
+import java.util.BitSet;
 import java.util.List;
 
 import com.iabtcf.utils.IntIterable;
 import com.iabtcf.v2.PublisherRestriction;
+import com.iabtcf.v2.PublisherRestrictions;
 
 public interface TCString {
     static TCString decode(String consentString) {
         return TCStringDecoder.decode(consentString);
     }
 
+    /**
+     * Decodes a TC string held by any CharSequence, e.g. a header value that was never copied into
+     * a String. Unless consentString is a String, the characters are fully consumed before this
+     * method returns.
+     */
+    static TCString decode(CharSequence consentString) {
+        return TCStringDecoder.decode(consentString);
+    }
+
+    /**
+     * Decodes a US-ASCII encoded TC string stored in buf[off, off + len). The bytes are fully
+     * consumed before this method returns and buf may be reused afterwards.
+     */
+    static TCString decode(byte[] buf, int off, int len) {
+        return TCStringDecoder.decode(buf, off, len);
+    }
+
+    /**
+     * Decodes the US-ASCII encoded TC string stored in the remaining bytes of a heap or direct
+     * buffer. The position and limit of the buffer are not modified. The bytes are fully consumed
+     * before this method returns and the buffer may be reused afterwards.
+     */
+    static TCString decode(ByteBuffer buffer) {
+        return TCStringDecoder.decode(buffer);
+    }
+
     /**
      * Version number of the encoding format
      * 
@@ -121,6 +150,18 @@ public interface TCString {
      */
     IntIterable getVendorConsent();
 
+    /**
+     * Whether the vendor has consent, the same as {@code getVendorConsent().contains(vendorId)}.
+     * Implementations may answer from the encoded section without decoding it.
+     *
+     * @since 2.0
+     * @param vendorId the vendor identifier
+     * @return true if the vendor has consent to process this users personal data
+     */
+    default boolean hasVendorConsent(int vendorId) {
+        return getVendorConsent().contains(vendorId);
+    }
+
     /**
      * Default consent for VendorIds not covered by a RangeEntry. VendorIds covered by a RangeEntry
      * have a consent value the opposite of DefaultConsent.
@@ -219,6 +260,19 @@ public interface TCString {
      */
     IntIterable getVendorLegitimateInterest();
 
+    /**
+     * Whether the vendor can process this user based on legitimate interest, the same as
+     * {@code getVendorLegitimateInterest().contains(vendorId)}. Implementations may answer from the
+     * encoded section without decoding it.
+     *
+     * @since 2.0
+     * @param vendorId the vendor identifier
+     * @return true if the vendor can process this user based on legitimate interest
+     */
+    default boolean hasVendorLegitimateInterest(int vendorId) {
+        return getVendorLegitimateInterest().contains(vendorId);
+    }
+
     /**
      * The restrictions of a vendor's data processing by a publisher within the context of the users
      * trafficking their digital property.
@@ -228,6 +282,19 @@ public interface TCString {
      */
     List<PublisherRestriction> getPublisherRestrictions();
 
+    /**
+     * The publisher restrictions indexed by purpose and restriction type. The default builds a new
+     * index on every call unless there are no restrictions, so implementations should return the
+     * same index every time.
+     *
+     * @since 2.0
+     * @return the index of {@link #getPublisherRestrictions()}
+     */
+    default PublisherRestrictions getPublisherRestrictionIndex() {
+        List<PublisherRestriction> restrictions = getPublisherRestrictions();
+        return restrictions.isEmpty() ? PublisherRestrictions.EMPTY : PublisherRestrictions.of(restrictions);
+    }
+
     /**
      * Part of the OOB segments expressing that a Vendor is using legal bases outside of the TCF to
      * process personal data.
@@ -299,4 +366,76 @@ public interface TCString {
      * @return The custom purpose consent values with established legitimate interest disclosure.
      */
     IntIterable getCustomPurposesLITransparency();
+
+    /**
+     * Whether the vendor may process personal data for the purpose on the legal basis of consent.
+     * The user consented to the purpose and to the vendor, and no publisher restriction disallows the
+     * purpose or requires legitimate interest for the vendor. Under PurposeOneTreatment purpose 1 was
+     * not disclosed, so it is never processed on the basis of consent.
+     *
+     * @since 2.0
+     * @param vendorId the vendor identifier
+     * @param purposeId the purpose identifier
+     * @return true if the vendor may process for the purpose with consent
+     */
+    default boolean canVendorProcessWithConsent(int vendorId, int purposeId) {
+        return ConsentDecisions.canProcessWithConsent(this, vendorId, purposeId);
+    }
+
+    /**
+     * Whether the vendor may process personal data for the purpose on the legal basis of legitimate
+     * interest. The purpose's transparency requirements are met, the user did not object to the
+     * vendor, and no publisher restriction disallows the purpose or requires consent for the vendor.
+     * Purpose 1 is never processed on the basis of legitimate interest.
+     *
+     * @since 2.0
+     * @param vendorId the vendor identifier
+     * @param purposeId the purpose identifier
+     * @return true if the vendor may process for the purpose with legitimate interest
+     */
+    default boolean canVendorProcessWithLegitimateInterest(int vendorId, int purposeId) {
+        return ConsentDecisions.canProcessWithLegitimateInterest(this, vendorId, purposeId);
+    }
+
+    /**
+     * Whether the vendor may process personal data for the purpose on the basis of either consent or
+     * legitimate interest.
+     *
+     * @since 2.0
+     * @param vendorId the vendor identifier
+     * @param purposeId the purpose identifier
+     * @return true if the vendor may process for the purpose
+     * @see #canVendorProcessWithConsent(int, int)
+     * @see #canVendorProcessWithLegitimateInterest(int, int)
+     */
+    default boolean canVendorProcess(int vendorId, int purposeId) {
+        return canVendorProcessWithConsent(vendorId, purposeId)
+                || canVendorProcessWithLegitimateInterest(vendorId, purposeId);
+    }
+
+    /**
+     * {@link #canVendorProcess(int, int)} for a batch of vendors. The purpose is evaluated once and
+     * the vendor sections are queried for all vendors at a time, fastest when vendorIds are sorted.
+     *
+     * @since 2.0
+     * @param purposeId the purpose identifier
+     * @param vendorIds the vendor identifiers
+     * @return a BitSet with bit i set if vendorIds[i] may process for the purpose
+     */
+    default BitSet canVendorsProcess(int purposeId, int... vendorIds) {
+        return ConsentDecisions.canProcess(this, purposeId, vendorIds);
+    }
+
+    /**
+     * Decodes every field of this TC string and stores its sets as
+     * {@link com.iabtcf.utils.CompactIntIterable}s, so that the encoded string and its decoded
+     * buffers can be released. Meant for TC strings that are kept for a long time, e.g. in a session
+     * cache. The default implementation, used by version 1 strings, returns this unchanged.
+     *
+     * @return a TC string with the same values, which for version 2 strings holds no reference to
+     *         the encoded string
+     */
+    default TCString compact() {
+        return this;
+    }
 }
@@ -20,25 +20,36 @@ package com.iabtcf.decoder;
  * #L%
  */
 
-import java.util.Base64;
+import java.nio.ByteBuffer;
 
 import com.iabtcf.ByteBitVector;
 import com.iabtcf.FieldDefs;
+import com.iabtcf.SegmentTable;
 
 class TCStringDecoder {
-    static ByteBitVector vectorFromString(String base64UrlEncodedString) {
-        // SegmentInputStream sis = new SegmentInputStream(base64UrlEncodedString, 0);
-        // InputStream is = DECODER.wrap(sis);
-        //
-        //
-        byte[] bytes = Base64.getUrlDecoder().decode(base64UrlEncodedString);
-        return new ByteBitVector(bytes);
+    /**
+     * Strings are immutable and decoded on demand, other character sequences are decoded up front
+     * since they may change once decoding returns.
+     */
+    static ByteBitVector vectorFromString(CharSequence base64UrlEncodedString, int start, int end) {
+        if (base64UrlEncodedString instanceof String) {
+            return ByteBitVector.fromBase64(base64UrlEncodedString, start, end);
+        }
+
+        return ByteBitVector.decodeBase64(base64UrlEncodedString, start, end);
+    }
+
+    public static TCString decode(byte[] buf, int off, int len) {
+        return decode(AsciiCharSequence.of(buf, off, len));
+    }
+
+    public static TCString decode(ByteBuffer buffer) {
+        return decode(AsciiCharSequence.of(buffer));
     }
 
-    public static TCString decode(String consentString) {
-        String[] split = consentString.split("\\.");
-        String base64UrlEncodedString = split[0];
-        ByteBitVector bitVector = vectorFromString(base64UrlEncodedString);
+    public static TCString decode(CharSequence consentString) {
+        SegmentTable segments = SegmentTable.scan(consentString);
+        ByteBitVector bitVector = vectorFromString(consentString, segments.start(0), segments.end(0));
 
         int version = bitVector.readBits6(FieldDefs.CORE_VERSION);
 
@@ -46,15 +57,7 @@ class TCStringDecoder {
             case 1:
                 return TCStringV1.fromBitVector(bitVector);
             case 2:
-                if (split.length > 1) {
-                    ByteBitVector[] remaining = new ByteBitVector[split.length - 1];
-                    for (int i = 1; i < split.length; i++) {
-                        remaining[i - 1] = vectorFromString(split[i]);
-                    }
-                    return TCStringV2.fromBitVector(bitVector, remaining);
-                } else {
-                    return TCStringV2.fromBitVector(bitVector);
-                }
+                return TCStringV2.fromSegments(bitVector, consentString, segments);
             default:
                 throw new UnsupportedOperationException("Version " + version + "is unsupported yet");
         }
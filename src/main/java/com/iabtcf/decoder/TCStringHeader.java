@@ -0,0 +1,148 @@
+package com.iabtcf.decoder;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static com.iabtcf.FieldDefs.CORE_CMP_ID;
+import static com.iabtcf.FieldDefs.CORE_CMP_VERSION;
+import static com.iabtcf.FieldDefs.CORE_CREATED;
+import static com.iabtcf.FieldDefs.CORE_LAST_UPDATED;
+import static com.iabtcf.FieldDefs.CORE_VENDOR_LIST_VERSION;
+import static com.iabtcf.FieldDefs.CORE_VERSION;
+
+import com.iabtcf.Base64UrlDecoder;
+import com.iabtcf.ByteBitVector;
+import com.iabtcf.FieldDefs;
+
+/**
+ * Reads the fixed offset header fields of a consent string without decoding it.
+ *
+ * The version, timestamps, CMP id, CMP version and vendor list version are located at the same bit
+ * offsets in V1 strings and in the core segment of V2 strings. Each method decodes only the base64
+ * characters covering the requested field and does not allocate, which makes it suitable for
+ * filtering strings before paying for a full {@link TCString#decode(CharSequence)}.
+ */
+public final class TCStringHeader {
+    /**
+     * The header fields are static, their offsets and lengths do not depend on the vector content.
+     */
+    private static final ByteBitVector EMPTY = new ByteBitVector(new byte[0]);
+
+    private static final long VERSION = field(CORE_VERSION);
+    private static final long CREATED = field(CORE_CREATED);
+    private static final long LAST_UPDATED = field(CORE_LAST_UPDATED);
+    private static final long CMP_ID = field(CORE_CMP_ID);
+    private static final long CMP_VERSION = field(CORE_CMP_VERSION);
+    private static final long VENDOR_LIST_VERSION = field(CORE_VENDOR_LIST_VERSION);
+
+    /**
+     * The number of base64 characters that need to be present for all header fields to be read.
+     */
+    public static final int LENGTH = (CORE_VENDOR_LIST_VERSION.getEnd(EMPTY) + 5) / 6;
+
+    private TCStringHeader() {
+    }
+
+    /**
+     * Returns the version of the consent string.
+     *
+     * @throws IllegalArgumentException if the field is truncated or not valid base64url
+     */
+    public static int getVersion(CharSequence consentString) {
+        return (int) read(consentString, VERSION);
+    }
+
+    /**
+     * Returns the creation time of the consent string in milliseconds since the epoch.
+     *
+     * @throws IllegalArgumentException if the field is truncated or not valid base64url
+     */
+    public static long getCreatedEpochMilli(CharSequence consentString) {
+        return read(consentString, CREATED) * 100;
+    }
+
+    /**
+     * Returns the last update time of the consent string in milliseconds since the epoch.
+     *
+     * @throws IllegalArgumentException if the field is truncated or not valid base64url
+     */
+    public static long getLastUpdatedEpochMilli(CharSequence consentString) {
+        return read(consentString, LAST_UPDATED) * 100;
+    }
+
+    /**
+     * Returns the id of the consent management platform.
+     *
+     * @throws IllegalArgumentException if the field is truncated or not valid base64url
+     */
+    public static int getCmpId(CharSequence consentString) {
+        return (int) read(consentString, CMP_ID);
+    }
+
+    /**
+     * Returns the version of the consent management platform.
+     *
+     * @throws IllegalArgumentException if the field is truncated or not valid base64url
+     */
+    public static int getCmpVersion(CharSequence consentString) {
+        return (int) read(consentString, CMP_VERSION);
+    }
+
+    /**
+     * Returns the version of the global vendor list used to create the consent string.
+     *
+     * @throws IllegalArgumentException if the field is truncated or not valid base64url
+     */
+    public static int getVendorListVersion(CharSequence consentString) {
+        return (int) read(consentString, VENDOR_LIST_VERSION);
+    }
+
+    /**
+     * Packs the offset and length of a header field into a long.
+     */
+    private static long field(FieldDefs field) {
+        return (long) field.getOffset(EMPTY) << 32 | field.getLength(EMPTY);
+    }
+
+    /**
+     * Decodes the sextets covering the bits of a packed field and returns the field value. Header
+     * fields are at most 36 bits wide, so the covering sextets always fit in a long.
+     */
+    private static long read(CharSequence src, long field) {
+        int offset = (int) (field >>> 32);
+        int length = (int) field;
+        int first = offset / 6;
+        int last = (offset + length - 1) / 6;
+        if (src.length() <= last) {
+            throw new IllegalArgumentException("Consent string header is truncated");
+        }
+
+        long value = 0;
+        for (int i = first; i <= last; i++) {
+            int sextet = Base64UrlDecoder.sextet(src.charAt(i));
+            if (sextet < 0) {
+                throw new IllegalArgumentException("Invalid base64url character at index " + i);
+            }
+            value = value << 6 | sextet;
+        }
+
+        return (value >>> ((last + 1) * 6 - offset - length)) & ((1L << length) - 1);
+    }
+}
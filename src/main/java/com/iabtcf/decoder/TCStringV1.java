@@ -40,8 +40,9 @@ import java.util.List;
 
 import com.iabtcf.ByteBitVector;
 import com.iabtcf.FieldDefs;
-import com.iabtcf.utils.BitSetIntIterable;
+import com.iabtcf.utils.BitVectorIntIterable;
 import com.iabtcf.utils.IntIterable;
+import com.iabtcf.utils.RangeIntIterable;
 import com.iabtcf.v2.PublisherRestriction;
 
 class TCStringV1 implements TCString {
@@ -112,6 +113,27 @@ class TCStringV1 implements TCString {
         return TCStringV2.fillBitSet(bbv, V1_PURPOSES_ALLOW);
     }
 
+    @Override
+    public boolean canVendorProcessWithConsent(int vendorId, int purposeId) {
+        return getPurposesConsent().contains(purposeId) && hasVendorConsent(vendorId);
+    }
+
+    /**
+     * Version 1 has no legitimate interest signals.
+     */
+    @Override
+    public boolean canVendorProcessWithLegitimateInterest(int vendorId, int purposeId) {
+        return false;
+    }
+
+    @Override
+    public BitSet canVendorsProcess(int purposeId, int... vendorIds) {
+        if (!getPurposesConsent().contains(purposeId)) {
+            return new BitSet();
+        }
+        return getVendorConsent().containsEach(vendorIds);
+    }
+
     @Override
     public int getTcfPolicyVersion() {
         throw new UnsupportedOperationException();
@@ -188,27 +210,17 @@ class TCStringV1 implements TCString {
     }
 
     private IntIterable fillVendorsV1(ByteBitVector bbv, FieldDefs maxVendor, FieldDefs vendorField) {
-        BitSet bs = new BitSet();
-
         int maxV = bbv.readBits16(maxVendor);
         boolean isRangeEncoding = bbv.readBits1(maxVendor.getEnd(bbv));
 
         if (isRangeEncoding) {
             boolean defaultConsent = bbv.readBits1(FieldDefs.V1_VENDOR_DEFAULT_CONSENT);
-            TCStringV2.vendorIdsFromRange(bbv, bs, FieldDefs.V1_VENDOR_NUM_ENTRIES.getOffset(bbv));
-
-            if (defaultConsent) {
-                bs.flip(1, maxV + 1);
-            }
-        } else {
-            for (int i = 0; i < maxV; i++) {
-                boolean hasVendorConsent = bbv.readBits1(vendorField.getOffset(bbv) + i);
-                if (hasVendorConsent) {
-                    bs.set(i + 1);
-                }
-            }
+            RangeIntIterable vendorIds =
+                    TCStringV2.vendorIdsFromRange(bbv, FieldDefs.V1_VENDOR_NUM_ENTRIES.getOffset(bbv));
+
+            return defaultConsent ? vendorIds.flip(1, maxV + 1) : vendorIds;
         }
 
-        return new BitSetIntIterable(bs);
+        return new BitVectorIntIterable(bbv, vendorField.getOffset(bbv), maxV, 1);
     }
 }
@@ -29,7 +29,6 @@ import static com.iabtcf.FieldDefs.CORE_CONSENT_SCREEN;
 import static com.iabtcf.FieldDefs.CORE_CREATED;
 import static com.iabtcf.FieldDefs.CORE_IS_SERVICE_SPECIFIC;
 import static com.iabtcf.FieldDefs.CORE_LAST_UPDATED;
-import static com.iabtcf.FieldDefs.CORE_NUM_PUB_RESTRICTION;
 import static com.iabtcf.FieldDefs.CORE_PUBLISHER_CC;
 import static com.iabtcf.FieldDefs.CORE_PUB_RESTRICTION_ENTRY;
 import static com.iabtcf.FieldDefs.CORE_PURPOSES_CONSENT;
@@ -41,35 +40,47 @@ import static com.iabtcf.FieldDefs.CORE_USE_NON_STANDARD_STOCKS;
 import static com.iabtcf.FieldDefs.CORE_VENDOR_BITRANGE_FIELD;
 import static com.iabtcf.FieldDefs.CORE_VENDOR_LIST_VERSION;
 import static com.iabtcf.FieldDefs.CORE_VENDOR_LI_BITRANGE_FIELD;
-import static com.iabtcf.FieldDefs.CORE_VENDOR_LI_MAX_VENDOR_ID;
-import static com.iabtcf.FieldDefs.CORE_VENDOR_MAX_VENDOR_ID;
 import static com.iabtcf.FieldDefs.CORE_VERSION;
 import static com.iabtcf.FieldDefs.DV_MAX_VENDOR_ID;
 import static com.iabtcf.FieldDefs.DV_VENDOR_BITRANGE_FIELD;
-import static com.iabtcf.FieldDefs.OOB_SEGMENT_TYPE;
+import static com.iabtcf.FieldDefs.END_VENDOR_ID;
+import static com.iabtcf.FieldDefs.IS_A_RANGE;
+import static com.iabtcf.FieldDefs.NUM_ENTRIES;
 import static com.iabtcf.FieldDefs.PPTC_CUSTOM_PURPOSES_CONSENT;
 import static com.iabtcf.FieldDefs.PPTC_CUSTOM_PURPOSES_LI_TRANSPARENCY;
 import static com.iabtcf.FieldDefs.PPTC_PUB_PURPOSES_CONSENT;
 import static com.iabtcf.FieldDefs.PPTC_PUB_PURPOSES_LI_TRANSPARENCY;
+import static com.iabtcf.FieldDefs.PURPOSE_ID;
+import static com.iabtcf.FieldDefs.START_OR_ONLY_VENDOR_ID;
 
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.BitSet;
-import java.util.Collection;
 import java.util.EnumSet;
 import java.util.List;
 
+import com.iabtcf.BitCursor;
 import com.iabtcf.ByteBitVector;
+import com.iabtcf.CoreSegmentLayout;
 import com.iabtcf.FieldDefs;
+import com.iabtcf.SegmentTable;
 import com.iabtcf.utils.BitSetIntIterable;
+import com.iabtcf.utils.BitVectorIntIterable;
 import com.iabtcf.utils.ByteBitVectorUtils;
+import com.iabtcf.utils.CompactIntIterable;
 import com.iabtcf.utils.IntIterable;
+import com.iabtcf.utils.RangeIntIterable;
 import com.iabtcf.v2.PublisherRestriction;
+import com.iabtcf.v2.PublisherRestrictions;
 import com.iabtcf.v2.RestrictionType;
 import com.iabtcf.v2.SegmentType;
 
 class TCStringV2 implements TCString {
+    private static final int PURPOSE_ID_LENGTH = PURPOSE_ID.getLength(null);
+    private static final int NUM_ENTRIES_LENGTH = NUM_ENTRIES.getLength(null);
+    private static final int START_OR_ONLY_VENDOR_ID_OFFSET = IS_A_RANGE.getLength(null);
+    private static final int END_VENDOR_ID_OFFSET =
+            START_OR_ONLY_VENDOR_ID_OFFSET + START_OR_ONLY_VENDOR_ID.getLength(null);
+    private static final int RANGE_ENTRY_LENGTH = END_VENDOR_ID_OFFSET + END_VENDOR_ID.getLength(null);
 
     private int version;
     private Instant consentRecordCreated;
@@ -90,6 +101,7 @@ class TCStringV2 implements TCString {
     private IntIterable vendorConsents;
     private IntIterable vendorLegitimateInterests;
     private List<PublisherRestriction> publisherRestrictions;
+    private PublisherRestrictions publisherRestrictionIndex;
     private IntIterable disclosedVendors;
     private IntIterable allowedVendors;
     private IntIterable publisherPurposesConsent;
@@ -98,20 +110,82 @@ class TCStringV2 implements TCString {
     private IntIterable customPurposesLITransparency;
 
     private final EnumSet<FieldDefs> cache = EnumSet.noneOf(FieldDefs.class);
-    private final ByteBitVector bbv;
-    private final Collection<ByteBitVector> remainingVectors;
+    private ByteBitVector bbv;
+    private SegmentDirectory segments;
+    private CoreSegmentLayout layout;
 
-    private TCStringV2(ByteBitVector bbv) {
-        this(bbv, new ByteBitVector[] {});
-    }
-
-    private TCStringV2(ByteBitVector bbv, ByteBitVector... theRest) {
+    private TCStringV2(ByteBitVector bbv, SegmentDirectory segments) {
         this.bbv = bbv;
-        this.remainingVectors = Arrays.asList(theRest);
+        this.segments = segments;
     }
 
     public static TCStringV2 fromBitVector(ByteBitVector coreBitVector, ByteBitVector... remainingVectors) {
-        return new TCStringV2(coreBitVector, remainingVectors);
+        return new TCStringV2(coreBitVector, SegmentDirectory.of(remainingVectors));
+    }
+
+    /**
+     * Creates a TCStringV2 whose out-of-band segments are located in src by segments and decoded on
+     * first access.
+     */
+    static TCStringV2 fromSegments(ByteBitVector coreBitVector, CharSequence src, SegmentTable segments) {
+        return new TCStringV2(coreBitVector, SegmentDirectory.of(src, segments));
+    }
+
+    private CoreSegmentLayout getLayout() {
+        if (layout == null) {
+            layout = CoreSegmentLayout.of(bbv);
+        }
+        return layout;
+    }
+
+    /**
+     * Decodes every field, converts the sets to {@link CompactIntIterable}s and drops the bit
+     * vectors. Every getter is served from the decoded fields afterwards.
+     */
+    @Override
+    public TCString compact() {
+        if (bbv == null) {
+            return this;
+        }
+
+        getVersion();
+        getCreated();
+        getLastUpdated();
+        getCmpId();
+        getCmpVersion();
+        getConsentScreen();
+        getConsentLanguage();
+        getVendorListVersion();
+        getTcfPolicyVersion();
+        isServiceSpecific();
+        getUseNonStandardStacks();
+        getPurposeOneTreatment();
+        getPublisherCC();
+
+        specialFeaturesOptInts = CompactIntIterable.of(getSpecialFeatureOptIns());
+        purposesConsent = CompactIntIterable.of(getPurposesConsent());
+        purposesLITransparency = CompactIntIterable.of(getPurposesLITransparency());
+        vendorConsents = CompactIntIterable.of(getVendorConsent());
+        vendorLegitimateInterests = CompactIntIterable.of(getVendorLegitimateInterest());
+        disclosedVendors = CompactIntIterable.of(getDisclosedVendors());
+        allowedVendors = CompactIntIterable.of(getAllowedVendors());
+        publisherPurposesConsent = CompactIntIterable.of(getPubPurposesConsent());
+        publisherPurposesLITransparency = CompactIntIterable.of(getPubPurposesLITransparency());
+        customPurposesConsent = CompactIntIterable.of(getCustomPurposesConsent());
+        customPurposesLITransparency = CompactIntIterable.of(getCustomPurposesLITransparency());
+
+        List<PublisherRestriction> restrictions = new ArrayList<>(getPublisherRestrictions().size());
+        for (PublisherRestriction restriction : getPublisherRestrictions()) {
+            restrictions.add(new PublisherRestriction(restriction.getPurposeId(), restriction.getRestrictionType(),
+                    CompactIntIterable.of(restriction.getVendorIds())));
+        }
+        publisherRestrictions = restrictions;
+        publisherRestrictionIndex = null;
+
+        bbv = null;
+        segments = null;
+        layout = null;
+        return this;
     }
 
     private ByteBitVector getSegment(SegmentType segmentType) {
@@ -119,190 +193,244 @@ class TCStringV2 implements TCString {
             return bbv;
         }
 
-        for (ByteBitVector rbbv : remainingVectors) {
-            int rSegmentType = rbbv.readBits3(OOB_SEGMENT_TYPE);
-            if (segmentType == SegmentType.from(rSegmentType)) {
-                return rbbv;
-            }
-        }
-        return null;
+        return segments.get(segmentType);
     }
 
     @Override
     public IntIterable getPubPurposesConsent() {
-        if (cache.add(PPTC_PUB_PURPOSES_CONSENT)) {
+        if (!cache.contains(PPTC_PUB_PURPOSES_CONSENT)) {
             publisherPurposesConsent = BitSetIntIterable.EMPTY;
 
             ByteBitVector dvBbv = getSegment(SegmentType.PUBLISHER_TC);
             if (dvBbv != null) {
                 publisherPurposesConsent = fillBitSet(dvBbv, PPTC_PUB_PURPOSES_CONSENT);
             }
+            cache.add(PPTC_PUB_PURPOSES_CONSENT);
         }
         return publisherPurposesConsent;
     }
 
-    static BitSetIntIterable fillVendors(ByteBitVector bbv, FieldDefs maxVendor, FieldDefs vendorField) {
-        BitSet bs = new BitSet();
-
+    static IntIterable fillVendors(ByteBitVector bbv, FieldDefs maxVendor, FieldDefs vendorField) {
         int maxV = bbv.readBits16(maxVendor);
         boolean isRangeEncoding = bbv.readBits1(maxVendor.getEnd(bbv));
 
         if (isRangeEncoding) {
-            vendorIdsFromRange(bbv, bs, vendorField);
-        } else {
-            for (int i = 0; i < maxV; i++) {
-                boolean hasVendorConsent = bbv.readBits1(vendorField.getOffset(bbv) + i);
-                if (hasVendorConsent) {
-                    bs.set(i + 1);
-                }
+            return vendorIdsFromRange(bbv, vendorField);
+        }
+        return new BitVectorIntIterable(bbv, vendorField.getOffset(bbv), maxV, 1);
+    }
+
+    /**
+     * Decodes a core vendor section located by the layout scan. Bitfield sections are returned as a
+     * view over the vector rather than copied.
+     */
+    static IntIterable fillVendors(ByteBitVector bbv, CoreSegmentLayout layout, int section) {
+        if (layout.isRangeEncoding(section)) {
+            int numberOfVendorEntries = layout.getEntryCount(section);
+            if (numberOfVendorEntries == 0) {
+                return RangeIntIterable.EMPTY;
             }
+            BitCursor cursor = new BitCursor(bbv, layout.getEntriesOffset(section));
+            return vendorIdsFromEntries(cursor, numberOfVendorEntries);
         }
-        return new BitSetIntIterable(bs);
+        return new BitVectorIntIterable(bbv, layout.getFieldOffset(section), layout.getMaxVendorId(section), 1);
     }
 
     /**
-     * Returns the offset following this range entry
+     * Returns whether a core vendor section contains vendorId. Only the header of the section is
+     * located through the layout: a bitfield is answered by a single bit read, range entries are read
+     * in place up to the first match without recording their offsets.
      */
-    static int vendorIdsFromRange(ByteBitVector bbv, BitSet bs, int numberOfVendorEntriesOffset) {
-        int numberOfVendorEntries = bbv.readBits12(numberOfVendorEntriesOffset);
-        int offset = numberOfVendorEntriesOffset + FieldDefs.NUM_ENTRIES.getLength(bbv);
+    static boolean hasVendor(ByteBitVector bbv, CoreSegmentLayout layout, int section, int vendorId) {
+        int offset = layout.getFieldOffset(section);
+        if (!layout.isRangeEncoding(section)) {
+            return vendorId >= 1 && vendorId <= layout.getMaxVendorId(section)
+                    && bbv.readBits1(offset + vendorId - 1);
+        }
 
+        int numberOfVendorEntries = bbv.readBits12(offset);
+        offset += NUM_ENTRIES_LENGTH;
+        for (int i = 0; i < numberOfVendorEntries; i++) {
+            int startOrOnlyVendorId = bbv.readBits16(offset + START_OR_ONLY_VENDOR_ID_OFFSET);
+            if (bbv.readBits1(offset)) {
+                if (startOrOnlyVendorId <= vendorId && vendorId <= bbv.readBits16(offset + END_VENDOR_ID_OFFSET)) {
+                    return true;
+                }
+                offset += RANGE_ENTRY_LENGTH;
+            } else {
+                if (startOrOnlyVendorId == vendorId) {
+                    return true;
+                }
+                offset += END_VENDOR_ID_OFFSET;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the vendor ids of the next numberOfVendorEntries range entries.
+     */
+    static RangeIntIterable vendorIdsFromEntries(BitCursor cursor, int numberOfVendorEntries) {
+        RangeIntIterable.Builder vendorIds = RangeIntIterable.builder(numberOfVendorEntries);
         for (int j = 0; j < numberOfVendorEntries; j++) {
-            boolean isRangeEntry = bbv.readBits1(offset++);
-            int startOrOnlyVendorId = bbv.readBits16(offset);
-            offset += FieldDefs.START_OR_ONLY_VENDOR_ID.getLength(bbv);
+            boolean isRangeEntry = cursor.readBits1();
+            int startOrOnlyVendorId = cursor.readBits16();
             if (isRangeEntry) {
-                int endVendorId = bbv.readBits16(offset);
-                offset += FieldDefs.START_OR_ONLY_VENDOR_ID.getLength(bbv);
-                bs.set(startOrOnlyVendorId, endVendorId + 1);
+                int endVendorId = cursor.readBits16();
+                vendorIds.add(startOrOnlyVendorId, endVendorId);
             } else {
-                bs.set(startOrOnlyVendorId);
+                vendorIds.add(startOrOnlyVendorId);
             }
         }
-
-        return offset;
+        return vendorIds.build();
     }
 
-    static void vendorIdsFromRange(ByteBitVector bbv, BitSet bs, FieldDefs vendorField) {
-        vendorIdsFromRange(bbv, bs, vendorField.getOffset(bbv));
+    /**
+     * Returns the vendor ids of the range section whose NumEntries field is at
+     * numberOfVendorEntriesOffset.
+     */
+    static RangeIntIterable vendorIdsFromRange(ByteBitVector bbv, int numberOfVendorEntriesOffset) {
+        BitCursor cursor = new BitCursor(bbv, numberOfVendorEntriesOffset);
+        return vendorIdsFromEntries(cursor, cursor.readBits12());
     }
 
-    private int fillPublisherRestrictions(
-            List<PublisherRestriction> publisherRestrictions, int currentPointer, ByteBitVector bitVector) {
+    static RangeIntIterable vendorIdsFromRange(ByteBitVector bbv, FieldDefs vendorField) {
+        return vendorIdsFromRange(bbv, vendorField.getOffset(bbv));
+    }
 
-        int numberOfPublisherRestrictions = bitVector.readBits12(currentPointer);
-        currentPointer += FieldDefs.NUM_ENTRIES.getLength(bitVector);
+    /**
+     * Adds the publisher restrictions located by the layout scan. Only the purpose id and restriction
+     * type of each restriction are read, its vendor range is decoded when the vendor ids are first
+     * used.
+     */
+    private static void fillPublisherRestrictions(
+            List<PublisherRestriction> publisherRestrictions, CoreSegmentLayout layout, ByteBitVector bitVector) {
 
-        for (int i = 0; i < numberOfPublisherRestrictions; i++) {
-            int purposeId = bitVector.readBits6(currentPointer);
-            currentPointer += FieldDefs.PURPOSE_ID.getLength(bitVector);;
+        for (int i = 0; i < layout.getPublisherRestrictionCount(); i++) {
+            int offset = layout.getPublisherRestrictionOffset(i);
+            int purposeId = bitVector.readBits6(offset);
+            RestrictionType restrictionType = RestrictionType.from(bitVector.readBits2(offset + PURPOSE_ID_LENGTH));
 
-            int restrictionTypeId = bitVector.readBits2(currentPointer);
-            currentPointer += 2;
-            RestrictionType restrictionType = RestrictionType.from(restrictionTypeId);
+            int restriction = i;
+            publisherRestrictions.add(new PublisherRestriction(purposeId, restrictionType,
+                    () -> restrictionVendorIds(bitVector, layout, restriction)));
+        }
+    }
 
-            BitSet bs = new BitSet();
-            currentPointer = vendorIdsFromRange(bbv, bs, currentPointer);
-            PublisherRestriction publisherRestriction =
-                    new PublisherRestriction(purposeId, restrictionType, new BitSetIntIterable(bs));
-            publisherRestrictions.add(publisherRestriction);
+    /**
+     * Returns the vendor ids of the nth publisher restriction located by the layout scan.
+     */
+    static RangeIntIterable restrictionVendorIds(ByteBitVector bbv, CoreSegmentLayout layout, int n) {
+        int numberOfVendorEntries = layout.getPublisherRestrictionEntryCount(n);
+        if (numberOfVendorEntries == 0) {
+            return RangeIntIterable.EMPTY;
         }
-        return currentPointer;
+        BitCursor cursor = new BitCursor(bbv, layout.getPublisherRestrictionEntriesOffset(n));
+        return vendorIdsFromEntries(cursor, numberOfVendorEntries);
     }
 
     static BitSetIntIterable fillBitSet(ByteBitVector bbv, FieldDefs field) {
-        int offset = field.getOffset(bbv);
-        int length = field.getLength(bbv);
-
-        BitSet bs = new BitSet();
-        for (int i = 0; i < length; i++) {
-            if (bbv.readBits1(offset + i)) {
-                bs.set(i + 1);
-            }
-        }
-        return new BitSetIntIterable(bs);
+        return new BitSetIntIterable(bbv.readBitSet(field.getOffset(bbv), field.getLength(bbv), 1));
     }
 
     @Override
     public int getVersion() {
-        if (cache.add(CORE_VERSION)) {
+        if (!cache.contains(CORE_VERSION)) {
             version = bbv.readBits6(CORE_VERSION);
+            cache.add(CORE_VERSION);
         }
         return version;
     }
 
     @Override
     public Instant getCreated() {
-        if (cache.add(CORE_CREATED)) {
+        if (!cache.contains(CORE_CREATED)) {
             consentRecordCreated = Instant.ofEpochMilli(bbv.readBits36(CORE_CREATED) * 100);
+            cache.add(CORE_CREATED);
         }
         return consentRecordCreated;
     }
 
     @Override
     public Instant getLastUpdated() {
-        if (cache.add(CORE_LAST_UPDATED)) {
+        if (!cache.contains(CORE_LAST_UPDATED)) {
             consentRecordLastUpdated = Instant.ofEpochMilli(bbv.readBits36(CORE_LAST_UPDATED) * 100);
+            cache.add(CORE_LAST_UPDATED);
         }
         return consentRecordLastUpdated;
     }
 
     @Override
     public int getCmpId() {
-        if (cache.add(CORE_CMP_ID)) {
+        if (!cache.contains(CORE_CMP_ID)) {
             consentManagerProviderId = (short) bbv.readBits12(CORE_CMP_ID);
+            cache.add(CORE_CMP_ID);
         }
         return consentManagerProviderId;
     }
 
     @Override
     public int getCmpVersion() {
-        if (cache.add(CORE_CMP_VERSION)) {
+        if (!cache.contains(CORE_CMP_VERSION)) {
             consentManagerProviderVersion = (short) bbv.readBits12(CORE_CMP_VERSION);
+            cache.add(CORE_CMP_VERSION);
         }
         return consentManagerProviderVersion;
     }
 
     @Override
     public int getConsentScreen() {
-        if (cache.add(CORE_CONSENT_SCREEN)) {
+        if (!cache.contains(CORE_CONSENT_SCREEN)) {
             consentScreen = bbv.readBits6(CORE_CONSENT_SCREEN);
+            cache.add(CORE_CONSENT_SCREEN);
         }
         return consentScreen;
     }
 
     @Override
     public String getConsentLanguage() {
-        if (cache.add(CORE_CONSENT_LANGUAGE)) {
+        if (!cache.contains(CORE_CONSENT_LANGUAGE)) {
             consentLanguage = ByteBitVectorUtils.readStr2(bbv, CORE_CONSENT_LANGUAGE);
+            cache.add(CORE_CONSENT_LANGUAGE);
         }
         return consentLanguage;
     }
 
     @Override
     public int getVendorListVersion() {
-        if (cache.add(CORE_VENDOR_LIST_VERSION)) {
+        if (!cache.contains(CORE_VENDOR_LIST_VERSION)) {
             vendorListVersion = (short) bbv.readBits12(CORE_VENDOR_LIST_VERSION);
+            cache.add(CORE_VENDOR_LIST_VERSION);
         }
         return vendorListVersion;
     }
 
     @Override
     public IntIterable getPurposesConsent() {
-        if (cache.add(CORE_PURPOSES_CONSENT)) {
+        if (!cache.contains(CORE_PURPOSES_CONSENT)) {
             purposesConsent = fillBitSet(bbv, CORE_PURPOSES_CONSENT);
+            cache.add(CORE_PURPOSES_CONSENT);
         }
         return purposesConsent;
     }
 
     @Override
     public IntIterable getVendorConsent() {
-        if (cache.add(CORE_VENDOR_BITRANGE_FIELD)) {
-            vendorConsents = fillVendors(bbv, CORE_VENDOR_MAX_VENDOR_ID, CORE_VENDOR_BITRANGE_FIELD);
+        if (!cache.contains(CORE_VENDOR_BITRANGE_FIELD)) {
+            vendorConsents = fillVendors(bbv, getLayout(), CoreSegmentLayout.VENDOR_CONSENT);
+            cache.add(CORE_VENDOR_BITRANGE_FIELD);
         }
         return vendorConsents;
     }
 
+    @Override
+    public boolean hasVendorConsent(int vendorId) {
+        if (cache.contains(CORE_VENDOR_BITRANGE_FIELD)) {
+            return vendorConsents.contains(vendorId);
+        }
+        return hasVendor(bbv, getLayout(), CoreSegmentLayout.VENDOR_CONSENT, vendorId);
+    }
+
     @Override
     public boolean getDefaultVendorConsent() {
         return false;
@@ -310,94 +438,120 @@ class TCStringV2 implements TCString {
 
     @Override
     public int getTcfPolicyVersion() {
-        if (cache.add(CORE_TCF_POLICY_VERSION)) {
+        if (!cache.contains(CORE_TCF_POLICY_VERSION)) {
             policyVersion = bbv.readBits6(CORE_TCF_POLICY_VERSION);
+            cache.add(CORE_TCF_POLICY_VERSION);
         }
         return policyVersion;
     }
 
     @Override
     public boolean isServiceSpecific() {
-        if (cache.add(CORE_IS_SERVICE_SPECIFIC)) {
+        if (!cache.contains(CORE_IS_SERVICE_SPECIFIC)) {
             isServiceSpecific = bbv.readBits1(CORE_IS_SERVICE_SPECIFIC);
+            cache.add(CORE_IS_SERVICE_SPECIFIC);
         }
         return isServiceSpecific;
     }
 
     @Override
     public boolean getUseNonStandardStacks() {
-        if (cache.add(CORE_USE_NON_STANDARD_STOCKS)) {
+        if (!cache.contains(CORE_USE_NON_STANDARD_STOCKS)) {
             useNonStandardStacks = bbv.readBits1(CORE_USE_NON_STANDARD_STOCKS);
+            cache.add(CORE_USE_NON_STANDARD_STOCKS);
         }
         return useNonStandardStacks;
     }
 
     @Override
     public IntIterable getSpecialFeatureOptIns() {
-        if (cache.add(CORE_SPECIAL_FEATURE_OPT_INS)) {
+        if (!cache.contains(CORE_SPECIAL_FEATURE_OPT_INS)) {
             specialFeaturesOptInts = fillBitSet(bbv, CORE_SPECIAL_FEATURE_OPT_INS);
+            cache.add(CORE_SPECIAL_FEATURE_OPT_INS);
         }
         return specialFeaturesOptInts;
     }
 
     @Override
     public IntIterable getPurposesLITransparency() {
-        if (cache.add(CORE_PURPOSES_LI_TRANSPARENCY)) {
+        if (!cache.contains(CORE_PURPOSES_LI_TRANSPARENCY)) {
             purposesLITransparency = fillBitSet(bbv, CORE_PURPOSES_LI_TRANSPARENCY);
+            cache.add(CORE_PURPOSES_LI_TRANSPARENCY);
         }
         return purposesLITransparency;
     }
 
     @Override
     public boolean getPurposeOneTreatment() {
-        if (cache.add(CORE_PURPOSE_ONE_TREATMENT)) {
+        if (!cache.contains(CORE_PURPOSE_ONE_TREATMENT)) {
             isPurposeOneTreatment = bbv.readBits1(CORE_PURPOSE_ONE_TREATMENT);
+            cache.add(CORE_PURPOSE_ONE_TREATMENT);
         }
         return isPurposeOneTreatment;
     }
 
     @Override
     public String getPublisherCC() {
-        if (cache.add(CORE_PUBLISHER_CC)) {
+        if (!cache.contains(CORE_PUBLISHER_CC)) {
             publisherCountryCode = ByteBitVectorUtils.readStr2(bbv, CORE_PUBLISHER_CC);
+            cache.add(CORE_PUBLISHER_CC);
         }
         return publisherCountryCode;
     }
 
     @Override
     public IntIterable getVendorLegitimateInterest() {
-        if (cache.add(CORE_VENDOR_LI_BITRANGE_FIELD)) {
+        if (!cache.contains(CORE_VENDOR_LI_BITRANGE_FIELD)) {
             vendorLegitimateInterests =
-                    fillVendors(bbv, CORE_VENDOR_LI_MAX_VENDOR_ID, FieldDefs.CORE_VENDOR_LI_BITRANGE_FIELD);
+                    fillVendors(bbv, getLayout(), CoreSegmentLayout.VENDOR_LEGITIMATE_INTEREST);
+            cache.add(CORE_VENDOR_LI_BITRANGE_FIELD);
         }
         return vendorLegitimateInterests;
     }
 
+    @Override
+    public boolean hasVendorLegitimateInterest(int vendorId) {
+        if (cache.contains(CORE_VENDOR_LI_BITRANGE_FIELD)) {
+            return vendorLegitimateInterests.contains(vendorId);
+        }
+        return hasVendor(bbv, getLayout(), CoreSegmentLayout.VENDOR_LEGITIMATE_INTEREST, vendorId);
+    }
+
     @Override
     public List<PublisherRestriction> getPublisherRestrictions() {
-        if (cache.add(CORE_PUB_RESTRICTION_ENTRY)) {
+        if (!cache.contains(CORE_PUB_RESTRICTION_ENTRY)) {
             publisherRestrictions = new ArrayList<>();
-            fillPublisherRestrictions(publisherRestrictions, CORE_NUM_PUB_RESTRICTION.getOffset(bbv), bbv);
+            fillPublisherRestrictions(publisherRestrictions, getLayout(), bbv);
+            cache.add(CORE_PUB_RESTRICTION_ENTRY);
         }
         return publisherRestrictions;
     }
 
+    @Override
+    public PublisherRestrictions getPublisherRestrictionIndex() {
+        if (publisherRestrictionIndex == null) {
+            publisherRestrictionIndex = PublisherRestrictions.of(getPublisherRestrictions());
+        }
+        return publisherRestrictionIndex;
+    }
+
     @Override
     public IntIterable getAllowedVendors() {
-        if (cache.add(AV_VENDOR_BITRANGE_FIELD)) {
+        if (!cache.contains(AV_VENDOR_BITRANGE_FIELD)) {
             allowedVendors = BitSetIntIterable.EMPTY;
 
             ByteBitVector dvBbv = getSegment(SegmentType.ALLOWED_VENDOR);
             if (dvBbv != null) {
                 allowedVendors = fillVendors(dvBbv, AV_MAX_VENDOR_ID, AV_VENDOR_BITRANGE_FIELD);
             }
+            cache.add(AV_VENDOR_BITRANGE_FIELD);
         }
         return allowedVendors;
     }
 
     @Override
     public IntIterable getDisclosedVendors() {
-        if (cache.add(DV_VENDOR_BITRANGE_FIELD)) {
+        if (!cache.contains(DV_VENDOR_BITRANGE_FIELD)) {
             disclosedVendors = BitSetIntIterable.EMPTY;
 
             ByteBitVector dvBbv = getSegment(SegmentType.DISCLOSED_VENDOR);
@@ -405,45 +559,49 @@ class TCStringV2 implements TCString {
             if (dvBbv != null) {
                 disclosedVendors = fillVendors(dvBbv, DV_MAX_VENDOR_ID, DV_VENDOR_BITRANGE_FIELD);
             }
+            cache.add(DV_VENDOR_BITRANGE_FIELD);
         }
         return disclosedVendors;
     }
 
     @Override
     public IntIterable getPubPurposesLITransparency() {
-        if (cache.add(PPTC_PUB_PURPOSES_LI_TRANSPARENCY)) {
+        if (!cache.contains(PPTC_PUB_PURPOSES_LI_TRANSPARENCY)) {
             publisherPurposesLITransparency = BitSetIntIterable.EMPTY;
 
             ByteBitVector dvBbv = getSegment(SegmentType.PUBLISHER_TC);
             if (dvBbv != null) {
                 publisherPurposesLITransparency = fillBitSet(dvBbv, PPTC_PUB_PURPOSES_LI_TRANSPARENCY);
             }
+            cache.add(PPTC_PUB_PURPOSES_LI_TRANSPARENCY);
         }
         return publisherPurposesLITransparency;
     }
 
     @Override
     public IntIterable getCustomPurposesConsent() {
-        if (cache.add(PPTC_CUSTOM_PURPOSES_CONSENT)) {
+        if (!cache.contains(PPTC_CUSTOM_PURPOSES_CONSENT)) {
             customPurposesConsent = BitSetIntIterable.EMPTY;
 
             ByteBitVector dvBbv = getSegment(SegmentType.PUBLISHER_TC);
             if (dvBbv != null) {
                 customPurposesConsent = fillBitSet(dvBbv, PPTC_CUSTOM_PURPOSES_CONSENT);
             }
+            cache.add(PPTC_CUSTOM_PURPOSES_CONSENT);
         }
         return customPurposesConsent;
     }
 
     @Override
     public IntIterable getCustomPurposesLITransparency() {
-        if (cache.add(PPTC_CUSTOM_PURPOSES_LI_TRANSPARENCY)) {
+        if (!cache.contains(PPTC_CUSTOM_PURPOSES_LI_TRANSPARENCY)) {
             customPurposesLITransparency = BitSetIntIterable.EMPTY;
 
             ByteBitVector dvBbv = getSegment(SegmentType.PUBLISHER_TC);
             if (dvBbv != null) {
                 customPurposesLITransparency = fillBitSet(dvBbv, PPTC_CUSTOM_PURPOSES_LI_TRANSPARENCY);
             }
+            cache.add(PPTC_CUSTOM_PURPOSES_LI_TRANSPARENCY);
         }
         return customPurposesLITransparency;
     }
@@ -23,6 +23,8 @@ package com.iabtcf.utils;
 import java.util.BitSet;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
 
 /**
  * An implementation of the IntIterable based on BitSet.
@@ -36,6 +38,13 @@ public class BitSetIntIterable implements IntIterable {
         this.bs = bs;
     }
 
+    /**
+     * Returns the backing BitSet, which must not be modified.
+     */
+    BitSet bitSet() {
+        return bs;
+    }
+
     @Override
     public boolean isEmpty() {
         return bs.isEmpty();
@@ -43,21 +52,58 @@ public class BitSetIntIterable implements IntIterable {
 
     @Override
     public boolean contains(int value) {
-        try {
-            return bs.get(value);
-        } catch (IndexOutOfBoundsException e) {
-            return false;
+        return value >= 0 && bs.get(value);
+    }
+
+    @Override
+    public int cardinality() {
+        return bs.cardinality();
+    }
+
+    @Override
+    public int min() {
+        int min = bs.nextSetBit(0);
+        if (min < 0) {
+            throw new NoSuchElementException();
         }
+        return min;
     }
 
     @Override
-    public boolean containsAll(int... source) {
-        for (int i = 0; i < source.length; i++) {
-            if (!contains(source[i])) {
-                return false;
-            }
+    public int max() {
+        int max = bs.length() - 1;
+        if (max < 0) {
+            throw new NoSuchElementException();
+        }
+        return max;
+    }
+
+    @Override
+    public int rank(int value) {
+        int n = 0;
+        for (int i = bs.nextSetBit(0); i >= 0 && i <= value; i = bs.nextSetBit(i + 1)) {
+            n++;
+        }
+        return n;
+    }
+
+    @Override
+    public int select(int k) {
+        int i = k >= 0 ? bs.nextSetBit(0) : -1;
+        for (int n = 0; n < k && i >= 0; n++) {
+            i = bs.nextSetBit(i + 1);
+        }
+        if (i < 0) {
+            throw new IndexOutOfBoundsException("k: " + k);
+        }
+        return i;
+    }
+
+    @Override
+    public void forEachInt(IntConsumer action) {
+        for (int i = bs.nextSetBit(0); i >= 0; i = bs.nextSetBit(i + 1)) {
+            action.accept(i);
         }
-        return true;
     }
 
     @Override
@@ -112,34 +158,44 @@ public class BitSetIntIterable implements IntIterable {
         };
     }
 
+    @Override
+    public int[] toArray() {
+        int[] values = new int[bs.cardinality()];
+        for (int n = 0, i = bs.nextSetBit(0); i >= 0; i = bs.nextSetBit(i + 1)) {
+            values[n++] = i;
+        }
+        return values;
+    }
+
+    @Override
+    public BitSet toBitSet() {
+        return (BitSet) bs.clone();
+    }
+
+    @Override
+    public long[] toLongArray() {
+        return bs.toLongArray();
+    }
+
+    /**
+     * Returns a Spliterator over a copy of the words of the BitSet, split at word boundaries.
+     */
+    @Override
+    public Spliterator.OfInt spliterator() {
+        return new WordSpliterator(bs.toLongArray());
+    }
+
     @Override
     public int hashCode() {
-        final int prime = 31;
-        int result = 1;
-        result = prime * result + ((bs == null) ? 0 : bs.hashCode());
-        return result;
+        return IntIterableUtils.hashCode(this);
     }
 
     @Override
     public boolean equals(Object obj) {
-        if (this == obj) {
-            return true;
-        }
-        if (obj == null) {
-            return false;
-        }
-        if (getClass() != obj.getClass()) {
-            return false;
-        }
-        BitSetIntIterable other = (BitSetIntIterable) obj;
-        if (bs == null) {
-            if (other.bs != null) {
-                return false;
-            }
-        } else if (!bs.equals(other.bs)) {
-            return false;
+        if (obj instanceof BitSetIntIterable) {
+            return bs.equals(((BitSetIntIterable) obj).bs);
         }
-        return true;
+        return IntIterableUtils.equals(this, obj);
     }
 
     @Override
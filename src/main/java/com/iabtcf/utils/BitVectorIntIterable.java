@@ -0,0 +1,245 @@
+package com.iabtcf.utils;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+
+import com.iabtcf.ByteBitVector;
+
+/**
+ * An IntIterable view over a bitfield of a ByteBitVector, the bit at offset + i holding the value
+ * fromIndex + i. Nothing is copied, contains is a single bit read and iteration scans the field
+ * {@link #CHUNK} bits at a time.
+ *
+ * The vector must not change for the life time of the view, which holds for the vectors created by
+ * the decoder. The field is made readable when the view is created, so decoding errors are reported
+ * by the constructor.
+ */
+public class BitVectorIntIterable implements IntIterable {
+    private static final int CHUNK = 56;
+
+    private final ByteBitVector bbv;
+    private final int offset;
+    private final int length;
+    private final int fromIndex;
+    // cached, the bits of a vector never change
+    private int hash;
+
+    public BitVectorIntIterable(ByteBitVector bbv, int offset, int length, int fromIndex) {
+        this.bbv = bbv;
+        this.offset = offset;
+        this.length = length;
+        this.fromIndex = fromIndex;
+
+        bbv.requireReadable(offset, length);
+    }
+
+    /**
+     * Reads the bits [i, i + n) of the field with the first bit at the least significant position.
+     */
+    private long readChunk(int i, int n) {
+        return Long.reverse(bbv.readBits(offset + i, n)) >>> (64 - n);
+    }
+
+    /**
+     * Returns a new BitSet of the values, read from the vector a word at a time.
+     */
+    @Override
+    public BitSet toBitSet() {
+        return bbv.readBitSet(offset, length, fromIndex);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (int i = 0; i < length; i += CHUNK) {
+            if (bbv.readBits(offset + i, Math.min(CHUNK, length - i)) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean contains(int value) {
+        int i = value - fromIndex;
+        return i >= 0 && i < length && bbv.readBits1(offset + i);
+    }
+
+    /**
+     * Returns the number of bits set in [0, end) of the field.
+     */
+    private int countBits(int end) {
+        int n = 0;
+        for (int i = 0; i < end; i += CHUNK) {
+            n += Long.bitCount(bbv.readBits(offset + i, Math.min(CHUNK, end - i)));
+        }
+        return n;
+    }
+
+    @Override
+    public int cardinality() {
+        return countBits(length);
+    }
+
+    @Override
+    public int min() {
+        for (int i = 0; i < length; i += CHUNK) {
+            long bits = readChunk(i, Math.min(CHUNK, length - i));
+            if (bits != 0) {
+                return fromIndex + i + Long.numberOfTrailingZeros(bits);
+            }
+        }
+        throw new NoSuchElementException();
+    }
+
+    @Override
+    public int max() {
+        int last = length > 0 ? (length - 1) / CHUNK * CHUNK : -1;
+        for (int i = last; i >= 0; i -= CHUNK) {
+            long bits = readChunk(i, Math.min(CHUNK, length - i));
+            if (bits != 0) {
+                return fromIndex + i + 63 - Long.numberOfLeadingZeros(bits);
+            }
+        }
+        throw new NoSuchElementException();
+    }
+
+    @Override
+    public int rank(int value) {
+        if (value < fromIndex) {
+            return 0;
+        }
+        int i = value - fromIndex;
+        return countBits(i < length ? i + 1 : length);
+    }
+
+    @Override
+    public int select(int k) {
+        int remaining = k;
+        for (int i = 0; i < length && remaining >= 0; i += CHUNK) {
+            long bits = readChunk(i, Math.min(CHUNK, length - i));
+            int n = Long.bitCount(bits);
+            if (remaining < n) {
+                for (; remaining > 0; remaining--) {
+                    bits &= bits - 1;
+                }
+                return fromIndex + i + Long.numberOfTrailingZeros(bits);
+            }
+            remaining -= n;
+        }
+        throw new IndexOutOfBoundsException("k: " + k);
+    }
+
+    @Override
+    public void forEachInt(IntConsumer action) {
+        for (int i = 0; i < length; i += CHUNK) {
+            for (long bits = readChunk(i, Math.min(CHUNK, length - i)); bits != 0; bits &= bits - 1) {
+                action.accept(fromIndex + i + Long.numberOfTrailingZeros(bits));
+            }
+        }
+    }
+
+    @Override
+    public IntIterator intIterator() {
+        return new IntIterator() {
+            int chunkStart = -CHUNK;
+            long bits;
+
+            @Override
+            public boolean hasNext() {
+                while (bits == 0) {
+                    chunkStart += CHUNK;
+                    if (chunkStart >= length) {
+                        chunkStart = length;
+                        return false;
+                    }
+                    bits = readChunk(chunkStart, Math.min(CHUNK, length - chunkStart));
+                }
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                return nextInt();
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int next = fromIndex + chunkStart + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                return next;
+            }
+        };
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return intIterator();
+    }
+
+    @Override
+    public int[] toArray() {
+        int[] values = new int[cardinality()];
+        int n = 0;
+        for (int i = 0; i < length; i += CHUNK) {
+            for (long bits = readChunk(i, Math.min(CHUNK, length - i)); bits != 0; bits &= bits - 1) {
+                values[n++] = fromIndex + i + Long.numberOfTrailingZeros(bits);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Returns a Spliterator over the words of the field, read once from the vector and split at word
+     * boundaries.
+     */
+    @Override
+    public Spliterator.OfInt spliterator() {
+        return new WordSpliterator(toLongArray());
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = IntIterableUtils.hashCode(this);
+            hash = h;
+        }
+        return h;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return IntIterableUtils.equals(this, obj);
+    }
+
+    @Override
+    public String toString() {
+        return IntIterableUtils.toString(this);
+    }
+}
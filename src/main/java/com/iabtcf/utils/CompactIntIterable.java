@@ -0,0 +1,651 @@
+package com.iabtcf.utils;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+/**
+ * An immutable IntIterable of non-negative values meant to be kept for a long time. Like a Roaring
+ * bitmap, the values are split into chunks of 65536 by their upper 16 bits, and each chunk is stored
+ * in whichever container is smallest for its values:
+ *
+ * <ul>
+ * <li>an array of the sorted lower 16 bits, 2 bytes per value</li>
+ * <li>a bitmap up to the highest value of the chunk, at most 8 KB</li>
+ * <li>a list of runs, 4 bytes per run of consecutive values</li>
+ * </ul>
+ *
+ * Vendor ids fit a single chunk, so a sparse vendor list costs 2 bytes per vendor and a list that
+ * allows nearly every vendor a few runs.
+ */
+public final class CompactIntIterable implements IntIterable {
+    public static final CompactIntIterable EMPTY = new CompactIntIterable(new char[0], new Container[0]);
+
+    private final char[] keys;
+    private final Container[] containers;
+    // cached hash code, 0 until computed
+    private int hash;
+
+    private CompactIntIterable(char[] keys, Container[] containers) {
+        this.keys = keys;
+        this.containers = containers;
+    }
+
+    /**
+     * Returns the values of it in compact form. Ranges of a {@link RangeIntIterable} are copied as
+     * ranges, other iterables are iterated once.
+     *
+     * @throws IllegalArgumentException if it contains negative values
+     */
+    public static CompactIntIterable of(IntIterable it) {
+        if (it instanceof CompactIntIterable) {
+            return (CompactIntIterable) it;
+        }
+
+        Builder builder = new Builder();
+        if (it instanceof RangeIntIterable) {
+            RangeIntIterable ranges = (RangeIntIterable) it;
+            for (int i = 0; i < ranges.rangeCount(); i++) {
+                builder.add(ranges.rangeStart(i), ranges.rangeEnd(i));
+            }
+        } else {
+            for (IntIterator i = it.intIterator(); i.hasNext();) {
+                int value = i.nextInt();
+                builder.add(value, value);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the number of bytes used by the containers, not counting object headers.
+     */
+    public int sizeInBytes() {
+        int bytes = keys.length * 2;
+        for (Container container : containers) {
+            bytes += container.sizeInBytes();
+        }
+        return bytes;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return keys.length == 0;
+    }
+
+    @Override
+    public boolean contains(int value) {
+        if (value < 0) {
+            return false;
+        }
+        int i = Arrays.binarySearch(keys, (char) (value >>> 16));
+        return i >= 0 && containers[i].contains((char) value);
+    }
+
+    @Override
+    public int cardinality() {
+        int n = 0;
+        for (Container container : containers) {
+            n += container.cardinality();
+        }
+        return n;
+    }
+
+    @Override
+    public int min() {
+        if (keys.length == 0) {
+            throw new NoSuchElementException();
+        }
+        return keys[0] << 16 | containers[0].select(0);
+    }
+
+    @Override
+    public int max() {
+        if (keys.length == 0) {
+            throw new NoSuchElementException();
+        }
+        Container last = containers[keys.length - 1];
+        return keys[keys.length - 1] << 16 | last.select(last.cardinality() - 1);
+    }
+
+    @Override
+    public int rank(int value) {
+        if (value < 0) {
+            return 0;
+        }
+        int i = Arrays.binarySearch(keys, (char) (value >>> 16));
+        int before = i >= 0 ? i : -i - 1;
+        int n = i >= 0 ? containers[i].rank((char) value) : 0;
+        for (int j = 0; j < before; j++) {
+            n += containers[j].cardinality();
+        }
+        return n;
+    }
+
+    @Override
+    public int select(int k) {
+        int remaining = k;
+        for (int i = 0; i < keys.length && remaining >= 0; i++) {
+            int n = containers[i].cardinality();
+            if (remaining < n) {
+                return keys[i] << 16 | containers[i].select(remaining);
+            }
+            remaining -= n;
+        }
+        throw new IndexOutOfBoundsException("k: " + k);
+    }
+
+    @Override
+    public void forEachInt(IntConsumer action) {
+        for (int i = 0; i < keys.length; i++) {
+            containers[i].forEach(keys[i] << 16, action);
+        }
+    }
+
+    @Override
+    public IntIterator intIterator() {
+        return new IntIterator() {
+            int chunk = -1;
+            IntIterator current = EmptyIterator.INSTANCE;
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext()) {
+                    if (++chunk >= keys.length) {
+                        chunk = keys.length;
+                        return false;
+                    }
+                    current = containers[chunk].iterator(keys[chunk] << 16);
+                }
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                return nextInt();
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.nextInt();
+            }
+        };
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return intIterator();
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = IntIterableUtils.hashCode(this);
+            hash = h;
+        }
+        return h;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return IntIterableUtils.equals(this, obj);
+    }
+
+    @Override
+    public String toString() {
+        return IntIterableUtils.toString(this);
+    }
+
+    /**
+     * The lower 16 bits of the values of a chunk.
+     */
+    private abstract static class Container {
+        abstract boolean contains(char low);
+
+        abstract int sizeInBytes();
+
+        abstract int cardinality();
+
+        /**
+         * Returns the number of values less than or equal to low.
+         */
+        abstract int rank(char low);
+
+        /**
+         * Returns the k-th smallest value, k being less than the cardinality.
+         */
+        abstract int select(int k);
+
+        /**
+         * Iterates the values of the container, high | low.
+         */
+        abstract IntIterator iterator(int high);
+
+        /**
+         * Performs the action for each value of the container, high | low.
+         */
+        abstract void forEach(int high, IntConsumer action);
+    }
+
+    private abstract static class ContainerIterator implements IntIterator {
+        @Override
+        public Integer next() {
+            return nextInt();
+        }
+    }
+
+    private static final class EmptyIterator extends ContainerIterator {
+        static final EmptyIterator INSTANCE = new EmptyIterator();
+
+        @Override
+        public boolean hasNext() {
+            return false;
+        }
+
+        @Override
+        public int nextInt() {
+            throw new NoSuchElementException();
+        }
+    }
+
+    private static final class ArrayContainer extends Container {
+        private final char[] values;
+
+        ArrayContainer(char[] values) {
+            this.values = values;
+        }
+
+        @Override
+        boolean contains(char low) {
+            return Arrays.binarySearch(values, low) >= 0;
+        }
+
+        @Override
+        int sizeInBytes() {
+            return values.length * 2;
+        }
+
+        @Override
+        int cardinality() {
+            return values.length;
+        }
+
+        @Override
+        int rank(char low) {
+            int i = Arrays.binarySearch(values, low);
+            return i >= 0 ? i + 1 : -i - 1;
+        }
+
+        @Override
+        int select(int k) {
+            return values[k];
+        }
+
+        @Override
+        void forEach(int high, IntConsumer action) {
+            for (char low : values) {
+                action.accept(high | low);
+            }
+        }
+
+        @Override
+        IntIterator iterator(int high) {
+            return new ContainerIterator() {
+                int i = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return i < values.length;
+                }
+
+                @Override
+                public int nextInt() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return high | values[i++];
+                }
+            };
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        private final long[] words;
+
+        BitmapContainer(int maxValue) {
+            this.words = new long[(maxValue >>> 6) + 1];
+        }
+
+        @Override
+        boolean contains(char low) {
+            int word = low >>> 6;
+            return word < words.length && (words[word] & 1L << low) != 0;
+        }
+
+        @Override
+        int sizeInBytes() {
+            return words.length * 8;
+        }
+
+        @Override
+        int cardinality() {
+            int n = 0;
+            for (long word : words) {
+                n += Long.bitCount(word);
+            }
+            return n;
+        }
+
+        @Override
+        int rank(char low) {
+            int last = low >>> 6;
+            if (last >= words.length) {
+                return cardinality();
+            }
+            int n = Long.bitCount(words[last] & -1L >>> 63 - (low & 63));
+            for (int i = 0; i < last; i++) {
+                n += Long.bitCount(words[i]);
+            }
+            return n;
+        }
+
+        @Override
+        int select(int k) {
+            int remaining = k;
+            for (int i = 0;; i++) {
+                int n = Long.bitCount(words[i]);
+                if (remaining < n) {
+                    long bits = words[i];
+                    for (; remaining > 0; remaining--) {
+                        bits &= bits - 1;
+                    }
+                    return i << 6 | Long.numberOfTrailingZeros(bits);
+                }
+                remaining -= n;
+            }
+        }
+
+        @Override
+        void forEach(int high, IntConsumer action) {
+            for (int i = 0; i < words.length; i++) {
+                for (long bits = words[i]; bits != 0; bits &= bits - 1) {
+                    action.accept(high | i << 6 | Long.numberOfTrailingZeros(bits));
+                }
+            }
+        }
+
+        @Override
+        IntIterator iterator(int high) {
+            return new ContainerIterator() {
+                int word = -1;
+                long bits;
+
+                @Override
+                public boolean hasNext() {
+                    while (bits == 0) {
+                        if (++word >= words.length) {
+                            word = words.length;
+                            return false;
+                        }
+                        bits = words[word];
+                    }
+                    return true;
+                }
+
+                @Override
+                public int nextInt() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    int low = word << 6 | Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    return high | low;
+                }
+            };
+        }
+    }
+
+    private static final class RunContainer extends Container {
+        // starts and inclusive ends of the runs
+        private final char[] starts;
+        private final char[] ends;
+
+        RunContainer(char[] starts, char[] ends) {
+            this.starts = starts;
+            this.ends = ends;
+        }
+
+        @Override
+        boolean contains(char low) {
+            int i = Arrays.binarySearch(starts, low);
+            if (i >= 0) {
+                return true;
+            }
+            int run = -i - 2;
+            return run >= 0 && low <= ends[run];
+        }
+
+        @Override
+        int sizeInBytes() {
+            return starts.length * 4;
+        }
+
+        @Override
+        int cardinality() {
+            int n = 0;
+            for (int i = 0; i < starts.length; i++) {
+                n += ends[i] - starts[i] + 1;
+            }
+            return n;
+        }
+
+        @Override
+        int rank(char low) {
+            int i = Arrays.binarySearch(starts, low);
+            int last = i >= 0 ? i : -i - 2;
+            if (last < 0) {
+                return 0;
+            }
+            int n = Math.min(low, ends[last]) - starts[last] + 1;
+            for (int j = 0; j < last; j++) {
+                n += ends[j] - starts[j] + 1;
+            }
+            return n;
+        }
+
+        @Override
+        int select(int k) {
+            int remaining = k;
+            for (int i = 0;; i++) {
+                int n = ends[i] - starts[i] + 1;
+                if (remaining < n) {
+                    return starts[i] + remaining;
+                }
+                remaining -= n;
+            }
+        }
+
+        @Override
+        void forEach(int high, IntConsumer action) {
+            for (int i = 0; i < starts.length; i++) {
+                for (int low = starts[i]; low <= ends[i]; low++) {
+                    action.accept(high | low);
+                }
+            }
+        }
+
+        @Override
+        IntIterator iterator(int high) {
+            return new ContainerIterator() {
+                int run = 0;
+                int next = starts.length > 0 ? starts[0] : 0;
+
+                @Override
+                public boolean hasNext() {
+                    return run < starts.length;
+                }
+
+                @Override
+                public int nextInt() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    int low = next;
+                    if (low == ends[run]) {
+                        if (++run < starts.length) {
+                            next = starts[run];
+                        }
+                    } else {
+                        next++;
+                    }
+                    return high | low;
+                }
+            };
+        }
+    }
+
+    /**
+     * Collects ascending runs chunk by chunk and stores each chunk in its smallest container.
+     */
+    private static final class Builder {
+
+        private char[] keys = new char[1];
+        private Container[] containers = new Container[1];
+        private int size;
+
+        // runs of the chunk being collected
+        private int key = -1;
+        private char[] runStarts = new char[16];
+        private char[] runEnds = new char[16];
+        private int runs;
+        private int cardinality;
+        private long last = -1;
+
+        /**
+         * Adds the values [start, end], which must follow every value added before.
+         */
+        void add(int start, int end) {
+            if (start < 0) {
+                throw new IllegalArgumentException("negative value " + start);
+            }
+            if (start <= last) {
+                throw new IllegalArgumentException("values must be added in ascending order");
+            }
+
+            while (start <= end) {
+                int chunkEnd = Math.min(end, start | 0xFFFF);
+                addToChunk(start >>> 16, (char) start, (char) chunkEnd);
+                if (chunkEnd == Integer.MAX_VALUE) {
+                    break;
+                }
+                start = chunkEnd + 1;
+            }
+            last = end;
+        }
+
+        private void addToChunk(int chunkKey, char low, char high) {
+            if (chunkKey != key) {
+                flush();
+                key = chunkKey;
+            }
+
+            if (runs > 0 && low == runEnds[runs - 1] + 1) {
+                runEnds[runs - 1] = high;
+            } else {
+                if (runs == runStarts.length) {
+                    runStarts = Arrays.copyOf(runStarts, runs * 2);
+                    runEnds = Arrays.copyOf(runEnds, runs * 2);
+                }
+                runStarts[runs] = low;
+                runEnds[runs] = high;
+                runs++;
+            }
+            cardinality += high - low + 1;
+        }
+
+        private void flush() {
+            if (runs == 0) {
+                return;
+            }
+
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                containers = Arrays.copyOf(containers, size * 2);
+            }
+            keys[size] = (char) key;
+            containers[size] = container();
+            size++;
+
+            runs = 0;
+            cardinality = 0;
+        }
+
+        private Container container() {
+            int runBytes = runs * 4;
+            int arrayBytes = cardinality * 2;
+            int bitmapBytes = ((runEnds[runs - 1] >>> 6) + 1) * 8;
+
+            if (runBytes <= arrayBytes && runBytes <= bitmapBytes) {
+                return new RunContainer(Arrays.copyOf(runStarts, runs), Arrays.copyOf(runEnds, runs));
+            }
+            if (arrayBytes <= bitmapBytes) {
+                return arrayContainer();
+            }
+            return bitmapContainer();
+        }
+
+        private ArrayContainer arrayContainer() {
+            char[] values = new char[cardinality];
+            int n = 0;
+            for (int i = 0; i < runs; i++) {
+                for (int v = runStarts[i]; v <= runEnds[i]; v++) {
+                    values[n++] = (char) v;
+                }
+            }
+            return new ArrayContainer(values);
+        }
+
+        private BitmapContainer bitmapContainer() {
+            BitmapContainer bitmap = new BitmapContainer(runEnds[runs - 1]);
+            for (int i = 0; i < runs; i++) {
+                for (int v = runStarts[i]; v <= runEnds[i]; v++) {
+                    bitmap.words[v >>> 6] |= 1L << v;
+                }
+            }
+            return bitmap;
+        }
+
+        CompactIntIterable build() {
+            flush();
+            if (size == 0) {
+                return EMPTY;
+            }
+            return new CompactIntIterable(Arrays.copyOf(keys, size), Arrays.copyOf(containers, size));
+        }
+    }
+}
@@ -20,15 +20,191 @@ package com.iabtcf.utils;
  * #L%
  */
 
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntConsumer;
+
 /**
  * An int primitive memory optimized iterable.
+ *
+ * Values are iterated in ascending order. Implementations are equal when they hold the same values,
+ * see {@link IntIterableUtils#equals(IntIterable, Object)}.
  */
 public interface IntIterable extends Iterable<Integer> {
     boolean isEmpty();
 
     boolean contains(int value);
 
-    boolean containsAll(int... source);
+    /**
+     * Returns true if every value of source is contained.
+     */
+    default boolean containsAll(int... source) {
+        for (int i = 0; i < source.length; i++) {
+            if (!contains(source[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if any value of source is contained.
+     */
+    default boolean containsAny(int... source) {
+        for (int i = 0; i < source.length; i++) {
+            if (contains(source[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the values of source that are contained, in the order of source. Lookups are fastest
+     * when source is sorted in ascending order, which lets {@link RangeIntIterable} gallop through its
+     * ranges instead of searching them for every value.
+     */
+    default int[] filter(int... source) {
+        int[] values = new int[source.length];
+        int n = 0;
+        for (int i = 0; i < source.length; i++) {
+            values[n] = source[i];
+            n += contains(source[i]) ? 1 : 0;
+        }
+        return n == values.length ? values : Arrays.copyOf(values, n);
+    }
+
+    /**
+     * Returns a BitSet with bit i set if source[i] is contained. Lookups are fastest when source is
+     * sorted in ascending order, see {@link #filter(int...)}.
+     */
+    default BitSet containsEach(int... source) {
+        BitSet mask = new BitSet(source.length);
+        for (int i = 0; i < source.length; i++) {
+            if (contains(source[i])) {
+                mask.set(i);
+            }
+        }
+        return mask;
+    }
 
     IntIterator intIterator();
+
+    /**
+     * Returns the number of values.
+     */
+    default int cardinality() {
+        int n = 0;
+        for (IntIterator i = intIterator(); i.hasNext(); i.nextInt()) {
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * Returns the smallest value.
+     *
+     * @throws NoSuchElementException if there are no values
+     */
+    default int min() {
+        return intIterator().nextInt();
+    }
+
+    /**
+     * Returns the largest value.
+     *
+     * @throws NoSuchElementException if there are no values
+     */
+    default int max() {
+        IntIterator i = intIterator();
+        int max = i.nextInt();
+        while (i.hasNext()) {
+            max = i.nextInt();
+        }
+        return max;
+    }
+
+    /**
+     * Returns the number of values less than or equal to value.
+     */
+    default int rank(int value) {
+        int n = 0;
+        for (IntIterator i = intIterator(); i.hasNext() && i.nextInt() <= value;) {
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * Returns the k-th smallest value, counting from 0, so that select(rank(v) - 1) == v for every
+     * value v.
+     *
+     * @throws IndexOutOfBoundsException if k is negative or not less than {@link #cardinality()}
+     */
+    default int select(int k) {
+        if (k >= 0) {
+            IntIterator i = intIterator();
+            for (int n = 0; i.hasNext(); n++) {
+                int value = i.nextInt();
+                if (n == k) {
+                    return value;
+                }
+            }
+        }
+        throw new IndexOutOfBoundsException("k: " + k);
+    }
+
+    /**
+     * Performs the action for each value in ascending order, without boxing.
+     */
+    default void forEachInt(IntConsumer action) {
+        for (IntIterator i = intIterator(); i.hasNext();) {
+            action.accept(i.nextInt());
+        }
+    }
+
+    /**
+     * Returns a new array of the values in ascending order.
+     */
+    default int[] toArray() {
+        int[] values = new int[cardinality()];
+        int n = 0;
+        for (IntIterator i = intIterator(); i.hasNext();) {
+            values[n++] = i.nextInt();
+        }
+        return values;
+    }
+
+    /**
+     * Returns a new BitSet of the values.
+     *
+     * @throws IndexOutOfBoundsException if there are negative values
+     */
+    default BitSet toBitSet() {
+        BitSet bs = new BitSet();
+        forEachInt(bs::set);
+        return bs;
+    }
+
+    /**
+     * Returns a new array of the values as words, in the layout of {@link BitSet#toLongArray()}.
+     *
+     * @throws IndexOutOfBoundsException if there are negative values
+     */
+    default long[] toLongArray() {
+        return toBitSet().toLongArray();
+    }
+
+    /**
+     * Returns a sized Spliterator of the values in ascending order. The default splits off batches of
+     * the iterator, implementations split at word or range boundaries instead.
+     */
+    @Override
+    default Spliterator.OfInt spliterator() {
+        return Spliterators.spliterator(intIterator(), cardinality(), Spliterator.ORDERED | Spliterator.SORTED
+                | Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+    }
 }
@@ -1,6 +1,5 @@
 package com.iabtcf.utils;
 
-import java.util.HashSet;
 
 /*-
  * #%L
@@ -22,16 +21,19 @@ import java.util.HashSet;
  * #L%
  */
 
+import java.util.BitSet;
+import java.util.HashSet;
 import java.util.Set;
-import java.util.Spliterator;
-import java.util.Spliterators;
+import java.util.StringJoiner;
 import java.util.stream.IntStream;
 import java.util.stream.StreamSupport;
 
 public class IntIterableUtils {
 
     /**
-     * Returns a set representation of the IntIterable.
+     * Returns a set representation of the IntIterable. Every value is boxed, prefer
+     * {@link IntIterable#toArray()}, {@link IntIterable#toBitSet()} or {@link CompactIntIterable#of}
+     * to hand the values over.
      */
     public static Set<Integer> toSet(IntIterable it) {
         Set<Integer> ts = new HashSet<>();
@@ -43,12 +45,253 @@ public class IntIterableUtils {
         return ts;
     }
 
+    /**
+     * Returns true if o is an IntIterable with the same values as it. IntIterables iterate their
+     * values in ascending order, so this is a single merge of both iterators.
+     */
+    public static boolean equals(IntIterable it, Object o) {
+        if (it == o) {
+            return true;
+        }
+        if (!(o instanceof IntIterable)) {
+            return false;
+        }
+
+        IntIterator a = it.intIterator();
+        IntIterator b = ((IntIterable) o).intIterator();
+        while (a.hasNext() && b.hasNext()) {
+            if (a.nextInt() != b.nextInt()) {
+                return false;
+            }
+        }
+        return !a.hasNext() && !b.hasNext();
+    }
+
+    /**
+     * Returns a hash of the values of the IntIterable in ascending order, which is the hash code of
+     * every IntIterable implementation so that equal values hash alike regardless of the
+     * representation. Every value is mixed before it is folded in, and so is the result, so that
+     * sets of small, close values such as vendor ids do not collide as they do with a plain
+     * polynomial.
+     */
+    public static int hashCode(IntIterable it) {
+        int h = 1;
+        for (IntIterator i = it.intIterator(); i.hasNext();) {
+            h = 31 * h + mix(i.nextInt());
+        }
+        return mix(h);
+    }
+
+    /**
+     * The finalization step of MurmurHash3, spreading every input bit over the whole result.
+     */
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * Returns the values of the IntIterable in the format of {@link java.util.BitSet#toString()}.
+     */
+    public static String toString(IntIterable it) {
+        StringJoiner sj = new StringJoiner(", ", "{", "}");
+        for (IntIterator i = it.intIterator(); i.hasNext();) {
+            sj.add(Integer.toString(i.nextInt()));
+        }
+        return sj.toString();
+    }
+
+    /**
+     * Returns the values in both a and b. Two RangeIntIterables are intersected into a
+     * RangeIntIterable. Otherwise the result is materialized into a new BitSet, a word at a time when
+     * both operands are bitfields and a range at a time when one of them is a RangeIntIterable.
+     */
+    public static IntIterable and(IntIterable a, IntIterable b) {
+        RangeIntIterable ra = ranges(a);
+        RangeIntIterable rb = ranges(b);
+        if (ra != null && rb != null) {
+            return ra.and(rb);
+        }
+        if (ra != null && hasWords(b)) {
+            return new BitSetIntIterable(ra.retainIn(b.toBitSet()));
+        }
+        if (rb != null && hasWords(a)) {
+            return new BitSetIntIterable(rb.retainIn(a.toBitSet()));
+        }
+        if (hasWords(a) && hasWords(b)) {
+            BitSet r = a.toBitSet();
+            r.and(words(b));
+            return new BitSetIntIterable(r);
+        }
+        return materialize(andView(a, b));
+    }
+
+    /**
+     * Returns the values in a or b. Two RangeIntIterables are merged into a RangeIntIterable.
+     * Otherwise the result is materialized into a new BitSet, a word at a time when both operands are
+     * bitfields and a range at a time when one of them is a RangeIntIterable.
+     */
+    public static IntIterable or(IntIterable a, IntIterable b) {
+        RangeIntIterable ra = ranges(a);
+        RangeIntIterable rb = ranges(b);
+        if (ra != null && rb != null) {
+            return ra.or(rb);
+        }
+        if (ra != null && hasWords(b)) {
+            return new BitSetIntIterable(ra.setIn(b.toBitSet()));
+        }
+        if (rb != null && hasWords(a)) {
+            return new BitSetIntIterable(rb.setIn(a.toBitSet()));
+        }
+        if (hasWords(a) && hasWords(b)) {
+            BitSet r = a.toBitSet();
+            r.or(words(b));
+            return new BitSetIntIterable(r);
+        }
+        return materialize(orView(a, b));
+    }
+
+    /**
+     * Returns the values in a that are not in b. When a is a RangeIntIterable and b a
+     * RangeIntIterable or bitfield, the result is a RangeIntIterable. Otherwise it is materialized
+     * into a new BitSet, a word at a time when both operands are bitfields and a range at a time when
+     * b is a RangeIntIterable.
+     */
+    public static IntIterable andNot(IntIterable a, IntIterable b) {
+        RangeIntIterable ra = ranges(a);
+        RangeIntIterable rb = ranges(b);
+        if (ra != null && rb != null) {
+            return ra.andNot(rb);
+        }
+        if (ra != null && hasWords(b)) {
+            return ra.andNot(words(b));
+        }
+        if (rb != null && hasWords(a)) {
+            return new BitSetIntIterable(rb.clearIn(a.toBitSet()));
+        }
+        if (hasWords(a) && hasWords(b)) {
+            BitSet r = a.toBitSet();
+            r.andNot(words(b));
+            return new BitSetIntIterable(r);
+        }
+        return materialize(andNotView(a, b));
+    }
+
+    /**
+     * Returns a view of the values in both a and b. Nothing is copied, the operands are merged on
+     * iteration and must not change for the life time of the view.
+     */
+    public static IntIterable andView(IntIterable a, IntIterable b) {
+        return new MergeIntIterable.And(a, b);
+    }
+
+    /**
+     * Returns a view of the values in a or b. Nothing is copied, the operands are merged on iteration
+     * and must not change for the life time of the view.
+     */
+    public static IntIterable orView(IntIterable a, IntIterable b) {
+        return new MergeIntIterable.Or(a, b);
+    }
+
+    /**
+     * Returns a view of the values in a that are not in b. Nothing is copied, the operands are merged
+     * on iteration and must not change for the life time of the view.
+     */
+    public static IntIterable andNotView(IntIterable a, IntIterable b) {
+        return new MergeIntIterable.AndNot(a, b);
+    }
+
+    /**
+     * Returns true if a and b have a value in common. Unless both are BitSetIntIterables, the values
+     * of a are tested against b until one is found, so a should be the smaller set.
+     */
+    public static boolean intersects(IntIterable a, IntIterable b) {
+        if (a instanceof BitSetIntIterable && b instanceof BitSetIntIterable) {
+            return ((BitSetIntIterable) a).bitSet().intersects(((BitSetIntIterable) b).bitSet());
+        }
+        for (IntIterator i = a.intIterator(); i.hasNext();) {
+            if (b.contains(i.nextInt())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of values in both a and b. Unless both are bitfields or ranges, the values of
+     * a are tested against b, so a should be the smaller set.
+     */
+    public static int intersectionCardinality(IntIterable a, IntIterable b) {
+        RangeIntIterable ra = ranges(a);
+        RangeIntIterable rb = ranges(b);
+        if (ra != null && rb != null) {
+            return ra.intersectionCardinality(rb);
+        }
+        if (ra != null && hasWords(b)) {
+            return ra.intersectionCardinality(words(b));
+        }
+        if (rb != null && hasWords(a)) {
+            return rb.intersectionCardinality(words(a));
+        }
+        if (hasWords(a) && hasWords(b)) {
+            BitSet r = a.toBitSet();
+            r.and(words(b));
+            return r.cardinality();
+        }
+        int n = 0;
+        for (IntIterator i = a.intIterator(); i.hasNext();) {
+            if (b.contains(i.nextInt())) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Returns true if the values of it can be read or written a word at a time.
+     */
+    private static boolean hasWords(IntIterable it) {
+        return it instanceof BitSetIntIterable || it instanceof BitVectorIntIterable;
+    }
+
+    /**
+     * Returns it if it is a RangeIntIterable, null otherwise.
+     */
+    private static RangeIntIterable ranges(IntIterable it) {
+        return it instanceof RangeIntIterable ? (RangeIntIterable) it : null;
+    }
+
+    /**
+     * Returns the values of an IntIterable for which {@link #hasWords} holds, which must not be
+     * modified.
+     */
+    private static BitSet words(IntIterable it) {
+        if (it instanceof BitSetIntIterable) {
+            return ((BitSetIntIterable) it).bitSet();
+        }
+        return it.toBitSet();
+    }
+
+    private static IntIterable materialize(IntIterable it) {
+        return new BitSetIntIterable(it.toBitSet());
+    }
+
     /**
      * Returns a stream representation of the IntIterable.
      */
     public static IntStream toStream(final IntIterable it) {
-        return StreamSupport.intStream(Spliterators.spliteratorUnknownSize(
-                it.intIterator(),
-                Spliterator.ORDERED | Spliterator.IMMUTABLE | Spliterator.NONNULL), false);
+        return toStream(it, false);
+    }
+
+    /**
+     * Returns a sequential or parallel stream of the values, sized and split by
+     * {@link IntIterable#spliterator()}.
+     */
+    public static IntStream toStream(final IntIterable it, boolean parallel) {
+        return StreamSupport.intStream(it.spliterator(), parallel);
     }
 }
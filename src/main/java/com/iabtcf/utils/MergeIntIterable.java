@@ -0,0 +1,211 @@
+package com.iabtcf.utils;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A lazy set operation over two IntIterables. Nothing is materialized: contains asks both operands
+ * and iteration merges their ascending iterators.
+ *
+ * The operands must not change for the life time of the view.
+ */
+abstract class MergeIntIterable implements IntIterable {
+    private static final int END = -1;
+    private static final int UNKNOWN = -2;
+
+    final IntIterable a;
+    final IntIterable b;
+
+    MergeIntIterable(IntIterable a, IntIterable b) {
+        this.a = a;
+        this.b = b;
+    }
+
+    /**
+     * Returns the next value of the operation, or END, advancing the cursor.
+     */
+    abstract int advance(Cursor c);
+
+    @Override
+    public boolean isEmpty() {
+        return !intIterator().hasNext();
+    }
+
+    @Override
+    public IntIterator intIterator() {
+        return new IntIterator() {
+            final Cursor c = new Cursor(a.intIterator(), b.intIterator());
+            int next = UNKNOWN;
+
+            @Override
+            public boolean hasNext() {
+                if (next == UNKNOWN) {
+                    next = advance(c);
+                }
+                return next != END;
+            }
+
+            @Override
+            public Integer next() {
+                return nextInt();
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int v = next;
+                next = UNKNOWN;
+                return v;
+            }
+        };
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return intIterator();
+    }
+
+    @Override
+    public int hashCode() {
+        return IntIterableUtils.hashCode(this);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return IntIterableUtils.equals(this, obj);
+    }
+
+    @Override
+    public String toString() {
+        return IntIterableUtils.toString(this);
+    }
+
+    /**
+     * The heads of both iterators, END once an iterator is exhausted.
+     */
+    static final class Cursor {
+        private final IntIterator ia;
+        private final IntIterator ib;
+        int na;
+        int nb;
+
+        Cursor(IntIterator ia, IntIterator ib) {
+            this.ia = ia;
+            this.ib = ib;
+            nextA();
+            nextB();
+        }
+
+        void nextA() {
+            na = ia.hasNext() ? ia.nextInt() : END;
+        }
+
+        void nextB() {
+            nb = ib.hasNext() ? ib.nextInt() : END;
+        }
+    }
+
+    static final class And extends MergeIntIterable {
+        And(IntIterable a, IntIterable b) {
+            super(a, b);
+        }
+
+        @Override
+        public boolean contains(int value) {
+            return a.contains(value) && b.contains(value);
+        }
+
+        @Override
+        int advance(Cursor c) {
+            while (c.na != END && c.nb != END) {
+                if (c.na < c.nb) {
+                    c.nextA();
+                } else if (c.nb < c.na) {
+                    c.nextB();
+                } else {
+                    int v = c.na;
+                    c.nextA();
+                    c.nextB();
+                    return v;
+                }
+            }
+            return END;
+        }
+    }
+
+    static final class Or extends MergeIntIterable {
+        Or(IntIterable a, IntIterable b) {
+            super(a, b);
+        }
+
+        @Override
+        public boolean contains(int value) {
+            return a.contains(value) || b.contains(value);
+        }
+
+        @Override
+        int advance(Cursor c) {
+            int v;
+            if (c.nb == END || (c.na != END && c.na <= c.nb)) {
+                v = c.na;
+            } else {
+                v = c.nb;
+            }
+            if (c.na == v && v != END) {
+                c.nextA();
+            }
+            if (c.nb == v && v != END) {
+                c.nextB();
+            }
+            return v;
+        }
+    }
+
+    static final class AndNot extends MergeIntIterable {
+        AndNot(IntIterable a, IntIterable b) {
+            super(a, b);
+        }
+
+        @Override
+        public boolean contains(int value) {
+            return a.contains(value) && !b.contains(value);
+        }
+
+        @Override
+        int advance(Cursor c) {
+            while (c.na != END) {
+                while (c.nb != END && c.nb < c.na) {
+                    c.nextB();
+                }
+                int v = c.na;
+                c.nextA();
+                if (v != c.nb) {
+                    return v;
+                }
+            }
+            return END;
+        }
+    }
+}
@@ -0,0 +1,713 @@
+package com.iabtcf.utils;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * An IntIterable of sorted, disjoint and non adjacent ranges [starts[i], ends[i]]. Storage is
+ * constant per range regardless of its length, contains is a binary search over the ranges and
+ * iteration walks each range without testing the values in between.
+ */
+public class RangeIntIterable implements IntIterable {
+    public static final RangeIntIterable EMPTY = new RangeIntIterable(new int[0], new int[0], 0);
+
+    private final int[] starts;
+    private final int[] ends;
+    private final int size;
+    // computed on first use, the ranges never change
+    private int hash;
+
+    private RangeIntIterable(int[] starts, int[] ends, int size) {
+        this.starts = starts;
+        this.ends = ends;
+        this.size = size;
+    }
+
+    public static Builder builder() {
+        return new Builder(8);
+    }
+
+    /**
+     * Returns a builder sized for the given number of ranges.
+     */
+    public static Builder builder(int expectedRanges) {
+        return new Builder(expectedRanges);
+    }
+
+    /**
+     * Returns the number of ranges.
+     */
+    public int rangeCount() {
+        return size;
+    }
+
+    /**
+     * Returns the first value of the i-th range.
+     */
+    public int rangeStart(int i) {
+        return starts[i];
+    }
+
+    /**
+     * Returns the last value, inclusive, of the i-th range.
+     */
+    public int rangeEnd(int i) {
+        return ends[i];
+    }
+
+    /**
+     * Returns the values of this iterable with the values in [fromIndex, toIndex) flipped, like
+     * {@link java.util.BitSet#flip(int, int)}.
+     */
+    public RangeIntIterable flip(int fromIndex, int toIndex) {
+        Builder builder = new Builder(size + 1);
+        int next = fromIndex;
+
+        for (int i = 0; i < size; i++) {
+            int start = starts[i];
+            int end = ends[i];
+
+            if (start < fromIndex) {
+                builder.add(start, Math.min(end, fromIndex - 1));
+            }
+            if (end >= toIndex) {
+                builder.add(Math.max(start, toIndex), end);
+            }
+            if (end >= fromIndex && start < toIndex) {
+                if (start > next) {
+                    builder.add(next, start - 1);
+                }
+                next = end + 1;
+            }
+        }
+        if (next < toIndex) {
+            builder.add(next, toIndex - 1);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the values in both this and other, intersecting the ranges pairwise.
+     */
+    RangeIntIterable and(RangeIntIterable other) {
+        Builder builder = new Builder(size + other.size);
+        for (int i = 0, j = 0; i < size && j < other.size;) {
+            int start = Math.max(starts[i], other.starts[j]);
+            int end = Math.min(ends[i], other.ends[j]);
+            if (start <= end) {
+                builder.add(start, end);
+            }
+            if (ends[i] < other.ends[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the values in this or other, merging the ranges in order of their starts.
+     */
+    RangeIntIterable or(RangeIntIterable other) {
+        Builder builder = new Builder(size + other.size);
+        for (int i = 0, j = 0; i < size || j < other.size;) {
+            if (j == other.size || i < size && starts[i] <= other.starts[j]) {
+                builder.add(starts[i], ends[i]);
+                i++;
+            } else {
+                builder.add(other.starts[j], other.ends[j]);
+                j++;
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the values in this that are not in other, cutting the ranges of other out of each
+     * range.
+     */
+    RangeIntIterable andNot(RangeIntIterable other) {
+        Builder builder = new Builder(size + other.size);
+        for (int i = 0, j = 0; i < size; i++) {
+            int start = starts[i];
+            int end = ends[i];
+            while (j < other.size && other.ends[j] < start) {
+                j++;
+            }
+
+            boolean covered = false;
+            for (int k = j; k < other.size && other.starts[k] <= end; k++) {
+                if (other.starts[k] > start) {
+                    builder.add(start, other.starts[k] - 1);
+                }
+                if (other.ends[k] >= end) {
+                    covered = true;
+                    break;
+                }
+                start = other.ends[k] + 1;
+            }
+            if (!covered) {
+                builder.add(start, end);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the number of values in both this and other.
+     */
+    int intersectionCardinality(RangeIntIterable other) {
+        int n = 0;
+        for (int i = 0, j = 0; i < size && j < other.size;) {
+            int start = Math.max(starts[i], other.starts[j]);
+            int end = Math.min(ends[i], other.ends[j]);
+            if (start <= end) {
+                n += end - start + 1;
+            }
+            if (ends[i] < other.ends[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Returns the values in this that are not set in bs. The set bits of each range are skipped a run
+     * at a time.
+     */
+    RangeIntIterable andNot(BitSet bs) {
+        Builder builder = new Builder(size);
+        for (int i = 0; i < size; i++) {
+            int start = starts[i];
+            int end = ends[i];
+            int set = bs.nextSetBit(start);
+            while (set >= 0 && set <= end) {
+                if (set > start) {
+                    builder.add(start, set - 1);
+                }
+                start = bs.nextClearBit(set);
+                set = start > end ? -1 : bs.nextSetBit(start);
+            }
+            if (start <= end) {
+                builder.add(start, end);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the number of values of this that are set in bs, counting the set bits of each range a
+     * run at a time.
+     */
+    int intersectionCardinality(BitSet bs) {
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            int end = ends[i];
+            int set = bs.nextSetBit(starts[i]);
+            while (set >= 0 && set <= end) {
+                int clear = bs.nextClearBit(set);
+                n += Math.min(clear - 1, end) - set + 1;
+                set = clear > end ? -1 : bs.nextSetBit(clear);
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Clears the bits of bs outside of the ranges and returns bs.
+     */
+    BitSet retainIn(BitSet bs) {
+        int length = bs.length();
+        int next = 0;
+        for (int i = 0; i < size && next < length; i++) {
+            bs.clear(next, Math.min(starts[i], length));
+            next = ends[i] < length ? ends[i] + 1 : length;
+        }
+        bs.clear(next, length);
+        return bs;
+    }
+
+    /**
+     * Sets the bits of the ranges in bs and returns bs.
+     */
+    BitSet setIn(BitSet bs) {
+        for (int i = 0; i < size; i++) {
+            bs.set(starts[i], ends[i] + 1);
+        }
+        return bs;
+    }
+
+    /**
+     * Clears the bits of the ranges in bs and returns bs.
+     */
+    BitSet clearIn(BitSet bs) {
+        int length = bs.length();
+        for (int i = 0; i < size && starts[i] < length; i++) {
+            bs.clear(starts[i], Math.min(ends[i], length - 1) + 1);
+        }
+        return bs;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the index of the last range starting at or before value, or -1.
+     */
+    private int floorRange(int value) {
+        int low = 0;
+        int high = size - 1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    @Override
+    public boolean contains(int value) {
+        int i = floorRange(value);
+        return i >= 0 && value <= ends[i];
+    }
+
+    /**
+     * Returns the index of the last range at or after from starting at or before value, or from - 1.
+     * The search gallops from from, so a sorted batch of values is looked up in a single pass.
+     */
+    private int gallop(int from, int value) {
+        int low = from;
+        int high = from;
+        for (int step = 1; high < size && starts[high] <= value; step <<= 1) {
+            low = high + 1;
+            high += step;
+        }
+        high = Math.min(high, size) - 1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    /**
+     * Returns the index of the last range starting at or before source[i], or -1. Ascending values
+     * gallop on from the range of the previous value, anything else searches from the first range.
+     */
+    private int floorRange(int[] source, int i, int previous) {
+        int from = i > 0 && source[i - 1] <= source[i] ? Math.max(previous, 0) : 0;
+        return gallop(from, source[i]);
+    }
+
+    @Override
+    public boolean containsAll(int... source) {
+        for (int i = 0, r = -1; i < source.length; i++) {
+            r = floorRange(source, i, r);
+            if (r < 0 || source[i] > ends[r]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean containsAny(int... source) {
+        for (int i = 0, r = -1; i < source.length; i++) {
+            r = floorRange(source, i, r);
+            if (r >= 0 && source[i] <= ends[r]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int[] filter(int... source) {
+        int[] values = new int[source.length];
+        int n = 0;
+        for (int i = 0, r = -1; i < source.length; i++) {
+            r = floorRange(source, i, r);
+            values[n] = source[i];
+            n += r >= 0 && source[i] <= ends[r] ? 1 : 0;
+        }
+        return n == values.length ? values : Arrays.copyOf(values, n);
+    }
+
+    @Override
+    public BitSet containsEach(int... source) {
+        BitSet mask = new BitSet(source.length);
+        for (int i = 0, r = -1; i < source.length; i++) {
+            r = floorRange(source, i, r);
+            if (r >= 0 && source[i] <= ends[r]) {
+                mask.set(i);
+            }
+        }
+        return mask;
+    }
+
+    @Override
+    public IntIterator intIterator() {
+        return new IntIterator() {
+            int range = 0;
+            int next = size > 0 ? starts[0] : 0;
+
+            @Override
+            public boolean hasNext() {
+                return range < size;
+            }
+
+            @Override
+            public Integer next() {
+                return nextInt();
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int value = next;
+                if (value == ends[range]) {
+                    if (++range < size) {
+                        next = starts[range];
+                    }
+                } else {
+                    next++;
+                }
+                return value;
+            }
+        };
+    }
+
+    @Override
+    public int cardinality() {
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            n += ends[i] - starts[i] + 1;
+        }
+        return n;
+    }
+
+    @Override
+    public int min() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return starts[0];
+    }
+
+    @Override
+    public int max() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return ends[size - 1];
+    }
+
+    @Override
+    public int rank(int value) {
+        int last = floorRange(value);
+        if (last < 0) {
+            return 0;
+        }
+        int n = Math.min(value, ends[last]) - starts[last] + 1;
+        for (int i = 0; i < last; i++) {
+            n += ends[i] - starts[i] + 1;
+        }
+        return n;
+    }
+
+    @Override
+    public int select(int k) {
+        int remaining = k;
+        for (int i = 0; i < size && remaining >= 0; i++) {
+            int length = ends[i] - starts[i] + 1;
+            if (remaining < length) {
+                return starts[i] + remaining;
+            }
+            remaining -= length;
+        }
+        throw new IndexOutOfBoundsException("k: " + k);
+    }
+
+    @Override
+    public void forEachInt(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            int value = starts[i];
+            action.accept(value);
+            while (value != ends[i]) {
+                action.accept(++value);
+            }
+        }
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return intIterator();
+    }
+
+    @Override
+    public int[] toArray() {
+        int[] values = new int[cardinality()];
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            int value = starts[i];
+            values[n++] = value;
+            while (value != ends[i]) {
+                values[n++] = ++value;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Returns a new BitSet of the values, set a range at a time.
+     *
+     * @throws IndexOutOfBoundsException if there are negative values
+     */
+    @Override
+    public BitSet toBitSet() {
+        BitSet bs = new BitSet();
+        for (int i = 0; i < size; i++) {
+            bs.set(starts[i], ends[i] + 1);
+        }
+        return bs;
+    }
+
+    /**
+     * Returns a Spliterator that splits at range boundaries, and a single range in halves.
+     */
+    @Override
+    public Spliterator.OfInt spliterator() {
+        return new RangeSpliterator(0, size > 0 ? starts[0] : 0, size);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = IntIterableUtils.hashCode(this);
+            hash = h;
+        }
+        return h;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof RangeIntIterable)) {
+            return IntIterableUtils.equals(this, obj);
+        }
+
+        // ranges are merged, so equal values have equal ranges
+        RangeIntIterable other = (RangeIntIterable) obj;
+        if (size != other.size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (starts[i] != other.starts[i] || ends[i] != other.ends[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return IntIterableUtils.toString(this);
+    }
+
+    private long length(int i) {
+        return (long) ends[i] - starts[i] + 1;
+    }
+
+    /**
+     * Iterates the ranges [index, fence), starting at the value next of the range index.
+     */
+    private class RangeSpliterator implements Spliterator.OfInt {
+        private final int fence;
+        private int index;
+        private int next;
+        private long size;
+
+        RangeSpliterator(int index, int next, int fence) {
+            this.index = index;
+            this.next = next;
+            this.fence = fence;
+            size = index < fence ? (long) ends[index] - next + 1 : 0;
+            for (int i = index + 1; i < fence; i++) {
+                size += length(i);
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            if (index >= fence) {
+                return false;
+            }
+            int value = next;
+            if (value == ends[index]) {
+                if (++index < fence) {
+                    next = starts[index];
+                }
+            } else {
+                next = value + 1;
+            }
+            size--;
+            action.accept(value);
+            return true;
+        }
+
+        @Override
+        public OfInt trySplit() {
+            if (fence - index > 1) {
+                int mid = (index + fence) >>> 1;
+                RangeSpliterator prefix = new RangeSpliterator(index, next, mid);
+                index = mid;
+                next = starts[mid];
+                size -= prefix.size;
+                return prefix;
+            }
+            if (index < fence && next < ends[index]) {
+                int mid = (int) ((long) next + ends[index] >> 1);
+                OfInt prefix = IntStream.rangeClosed(next, mid).spliterator();
+                size -= (long) mid - next + 1;
+                next = mid + 1;
+                return prefix;
+            }
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return size;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SORTED | DISTINCT | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+        }
+
+        @Override
+        public Comparator<? super Integer> getComparator() {
+            return null;
+        }
+    }
+
+    /**
+     * Collects values and ranges in any order. Values added in ascending order of their start are
+     * merged as they are added, anything else is sorted and merged by {@link #build()}.
+     */
+    public static class Builder {
+        private int[] starts;
+        private int[] ends;
+        private int count;
+        private boolean sorted = true;
+
+        private Builder(int expectedRanges) {
+            starts = new int[Math.max(expectedRanges, 1)];
+            ends = new int[starts.length];
+        }
+
+        public Builder add(int value) {
+            return add(value, value);
+        }
+
+        /**
+         * Adds the values [start, end], nothing if end == start - 1.
+         *
+         * @throws IndexOutOfBoundsException if end < start - 1, like {@link java.util.BitSet#set(int, int)}
+         */
+        public Builder add(int start, int end) {
+            if (end < start) {
+                if (end == start - 1) {
+                    return this;
+                }
+                throw new IndexOutOfBoundsException("start: " + start + " > end: " + end);
+            }
+
+            if (sorted && count > 0) {
+                if (start < starts[count - 1]) {
+                    sorted = false;
+                } else if ((long) start <= (long) ends[count - 1] + 1) {
+                    ends[count - 1] = Math.max(ends[count - 1], end);
+                    return this;
+                }
+            }
+
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+            }
+            starts[count] = start;
+            ends[count] = end;
+            count++;
+            return this;
+        }
+
+        /**
+         * Returns the ranges added so far. The builder can keep adding ranges, which don't affect
+         * the iterables it returned before.
+         */
+        public RangeIntIterable build() {
+            if (count == 0) {
+                return EMPTY;
+            }
+            if (sorted) {
+                return new RangeIntIterable(Arrays.copyOf(starts, count), Arrays.copyOf(ends, count), count);
+            }
+
+            // start << 32 | end sorts by start
+            long[] ranges = new long[count];
+            for (int i = 0; i < count; i++) {
+                ranges[i] = (long) starts[i] << 32 | (ends[i] & 0xFFFFFFFFL);
+            }
+            Arrays.sort(ranges);
+
+            Builder merged = new Builder(count);
+            for (long range : ranges) {
+                merged.add((int) (range >> 32), (int) range);
+            }
+            return merged.build();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.iabtcf.utils;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+
+/**
+ * A Spliterator over the set bits of words laid out like {@link java.util.BitSet#toLongArray()}, bit
+ * i of words[i / 64] holding the value i. It splits at word boundaries and the size of both halves
+ * is counted with {@link Long#bitCount(long)}, so it is sized and subsized.
+ *
+ * The words must not change for the life time of the spliterator.
+ */
+class WordSpliterator implements Spliterator.OfInt {
+    private final long[] words;
+    private final int fence;
+    private int index;
+    private long bits;
+    private int size;
+
+    WordSpliterator(long[] words) {
+        this(words, 0, words.length > 0 ? words[0] : 0, words.length, count(words, 0, words.length));
+    }
+
+    private WordSpliterator(long[] words, int index, long bits, int fence, int size) {
+        this.words = words;
+        this.index = index;
+        this.bits = bits;
+        this.fence = fence;
+        this.size = size;
+    }
+
+    private static int count(long[] words, int from, int to) {
+        int n = 0;
+        for (int i = from; i < to; i++) {
+            n += Long.bitCount(words[i]);
+        }
+        return n;
+    }
+
+    @Override
+    public boolean tryAdvance(IntConsumer action) {
+        while (bits == 0) {
+            if (++index >= fence) {
+                index = fence;
+                return false;
+            }
+            bits = words[index];
+        }
+        int next = index << 6 | Long.numberOfTrailingZeros(bits);
+        bits &= bits - 1;
+        size--;
+        action.accept(next);
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(IntConsumer action) {
+        for (; index < fence; index++, bits = index < fence ? words[index] : 0) {
+            for (; bits != 0; bits &= bits - 1) {
+                action.accept(index << 6 | Long.numberOfTrailingZeros(bits));
+            }
+        }
+        size = 0;
+    }
+
+    @Override
+    public OfInt trySplit() {
+        if (fence - index < 2) {
+            return null;
+        }
+        int mid = (index + fence) >>> 1;
+        int n = Long.bitCount(bits) + count(words, index + 1, mid);
+        WordSpliterator prefix = new WordSpliterator(words, index, bits, mid, n);
+        index = mid;
+        bits = words[mid];
+        size -= n;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return size;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SORTED | DISTINCT | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+    }
+
+    @Override
+    public Comparator<? super Integer> getComparator() {
+        return null;
+    }
+}
@@ -22,6 +22,7 @@ package com.iabtcf.v2;
 
 import java.util.Objects;
 import java.util.StringJoiner;
+import java.util.function.Supplier;
 
 import com.iabtcf.utils.IntIterable;
 import com.iabtcf.utils.IntIterator;
@@ -30,7 +31,9 @@ public class PublisherRestriction {
 
     private final int purposeId;
     private final RestrictionType restrictionType;
-    private final IntIterable vendorIds;
+    // released once the vendor ids are resolved, with what it keeps reachable
+    private Supplier<? extends IntIterable> vendorIdsSupplier;
+    private IntIterable vendorIds;
 
     public PublisherRestriction(
             int purposeId, RestrictionType restrictionType, IntIterable vendorIds) {
@@ -42,6 +45,22 @@ public class PublisherRestriction {
         this.vendorIds = vendorIds;
     }
 
+    /**
+     * Creates a restriction whose vendor ids are obtained from the supplier when first used. The
+     * supplier is released once it returned, and called again on the next use should it throw. Like
+     * the TC string it is decoded from, such a restriction must not be shared between threads before
+     * its vendor ids were obtained.
+     */
+    public PublisherRestriction(
+            int purposeId, RestrictionType restrictionType, Supplier<? extends IntIterable> vendorIds) {
+        Objects.requireNonNull(vendorIds);
+        Objects.requireNonNull(restrictionType);
+
+        this.purposeId = purposeId;
+        this.restrictionType = restrictionType;
+        this.vendorIdsSupplier = vendorIds;
+    }
+
     public int getPurposeId() {
         return purposeId;
     }
@@ -51,7 +70,13 @@ public class PublisherRestriction {
     }
 
     public IntIterable getVendorIds() {
-        return vendorIds;
+        IntIterable ids = vendorIds;
+        if (ids == null) {
+            ids = Objects.requireNonNull(vendorIdsSupplier.get());
+            vendorIds = ids;
+            vendorIdsSupplier = null;
+        }
+        return ids;
     }
 
     @Override
@@ -81,11 +106,11 @@ public class PublisherRestriction {
         PublisherRestriction that = (PublisherRestriction) o;
         return purposeId == that.purposeId
                 && restrictionType == that.restrictionType
-                && this.vendorIds.equals(that.vendorIds);
+                && getVendorIds().equals(that.getVendorIds());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(purposeId, restrictionType, vendorIds);
+        return Objects.hash(purposeId, restrictionType, getVendorIds());
     }
 }
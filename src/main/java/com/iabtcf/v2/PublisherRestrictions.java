@@ -0,0 +1,257 @@
+package com.iabtcf.v2;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.iabtcf.utils.BitSetIntIterable;
+import com.iabtcf.utils.IntIterable;
+import com.iabtcf.utils.IntIterableUtils;
+
+/**
+ * An index over a list of publisher restrictions. The restrictions are grouped by purpose, and the
+ * vendors of a purpose's restrictions are merged by restriction type when the purpose is first
+ * queried, so the vendor ids of restrictions of other purposes are never decoded.
+ *
+ * A vendor is restricted at most once per purpose. Should a list restrict a vendor more than once
+ * for the same purpose, the most restrictive restriction wins: {@link RestrictionType#NOT_ALLOWED}
+ * dominates the others, and a vendor required both consent and legitimate interest is not allowed
+ * for the purpose.
+ */
+public final class PublisherRestrictions {
+    private static final RestrictionType[] TYPES = RestrictionType.values();
+
+    public static final PublisherRestrictions EMPTY = of(Collections.emptyList());
+
+    private final List<PublisherRestriction> restrictions;
+    // [purposeId] holds the indices of the restrictions of the purpose, null when not restricted
+    private final int[][] restrictionsByPurpose;
+    private final Purpose[] purposes;
+    private final IntIterable[] vendorsByType = new IntIterable[TYPES.length];
+
+    private PublisherRestrictions(List<PublisherRestriction> restrictions) {
+        this.restrictions = restrictions;
+
+        int numPurposes = 0;
+        for (PublisherRestriction restriction : restrictions) {
+            if (restriction.getPurposeId() < 0) {
+                throw new IllegalArgumentException("Invalid purpose id " + restriction.getPurposeId());
+            }
+            numPurposes = Math.max(numPurposes, restriction.getPurposeId() + 1);
+        }
+
+        int[] counts = new int[numPurposes];
+        for (PublisherRestriction restriction : restrictions) {
+            counts[restriction.getPurposeId()]++;
+        }
+
+        restrictionsByPurpose = new int[numPurposes][];
+        purposes = new Purpose[numPurposes];
+        for (int i = 0; i < restrictions.size(); i++) {
+            int purposeId = restrictions.get(i).getPurposeId();
+            int[] indices = restrictionsByPurpose[purposeId];
+            if (indices == null) {
+                indices = new int[counts[purposeId]];
+                restrictionsByPurpose[purposeId] = indices;
+            }
+            indices[indices.length - counts[purposeId]--] = i;
+        }
+    }
+
+    /**
+     * Returns an index of the restrictions, which must not change for the life time of the index.
+     *
+     * @throws IllegalArgumentException if a restriction has a negative purpose id
+     */
+    public static PublisherRestrictions of(List<PublisherRestriction> restrictions) {
+        return new PublisherRestrictions(restrictions);
+    }
+
+    private static IntIterable or(IntIterable a, IntIterable b) {
+        return a == null ? b : IntIterableUtils.or(a, b);
+    }
+
+    private static IntIterable orEmpty(IntIterable it) {
+        return it == null ? BitSetIntIterable.EMPTY : it;
+    }
+
+    /**
+     * The vendors of the restrictions of a purpose, merged as a whole and by restriction type.
+     */
+    private static final class Purpose {
+        private final int[] restrictions;
+        private final IntIterable vendors;
+        private final IntIterable[] vendorsByType = new IntIterable[TYPES.length];
+
+        Purpose(List<PublisherRestriction> list, int[] restrictions) {
+            this.restrictions = restrictions;
+
+            IntIterable all = null;
+            for (int i : restrictions) {
+                PublisherRestriction restriction = list.get(i);
+                int type = restriction.getRestrictionType().ordinal();
+                IntIterable vendorIds = restriction.getVendorIds();
+
+                all = or(all, vendorIds);
+                vendorsByType[type] = or(vendorsByType[type], vendorIds);
+            }
+            vendors = all;
+        }
+    }
+
+    /**
+     * Returns the purpose, indexing it on first use, or null if it is not restricted.
+     */
+    private Purpose purpose(int purposeId) {
+        if (purposeId < 0 || purposeId >= purposes.length || restrictionsByPurpose[purposeId] == null) {
+            return null;
+        }
+        Purpose purpose = purposes[purposeId];
+        if (purpose == null) {
+            purpose = new Purpose(restrictions, restrictionsByPurpose[purposeId]);
+            purposes[purposeId] = purpose;
+        }
+        return purpose;
+    }
+
+    /**
+     * Returns the restrictions in the order they were indexed.
+     */
+    public List<PublisherRestriction> getRestrictions() {
+        return restrictions;
+    }
+
+    /**
+     * Returns the most restrictive restriction of the vendor for the purpose, or null if there is
+     * none. A vendor required both consent and legitimate interest gets its REQUIRE_CONSENT
+     * restriction, whose type differs from the NOT_ALLOWED of
+     * {@link #getRestrictionType(int, int)}; decisions should be made on the latter.
+     */
+    public PublisherRestriction getRestriction(int vendorId, int purposeId) {
+        Purpose purpose = purpose(purposeId);
+        if (purpose == null || !purpose.vendors.contains(vendorId)) {
+            return null;
+        }
+        RestrictionType restrictionType = restrictionType(purpose, vendorId);
+        for (int i : purpose.restrictions) {
+            PublisherRestriction restriction = restrictions.get(i);
+            if (restriction.getRestrictionType() == restrictionType
+                    && restriction.getVendorIds().contains(vendorId)) {
+                return restriction;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the most restrictive type of the restrictions of the vendor, types being declared from
+     * the most to the least restrictive.
+     */
+    private static RestrictionType restrictionType(Purpose purpose, int vendorId) {
+        for (int type = 0; type < TYPES.length; type++) {
+            IntIterable vendors = purpose.vendorsByType[type];
+            if (vendors != null && vendors.contains(vendorId)) {
+                return TYPES[type];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns how the vendor is restricted for the purpose, or null if it is not. A vendor required
+     * both consent and legitimate interest is not allowed, although no restriction of the vendor
+     * may be of type NOT_ALLOWED.
+     */
+    public RestrictionType getRestrictionType(int vendorId, int purposeId) {
+        Purpose purpose = purpose(purposeId);
+        if (purpose == null || !purpose.vendors.contains(vendorId)) {
+            return null;
+        }
+        RestrictionType restrictionType = restrictionType(purpose, vendorId);
+        if (restrictionType == RestrictionType.REQUIRE_CONSENT) {
+            IntIterable legitimateInterest =
+                    purpose.vendorsByType[RestrictionType.REQUIRE_LEGITIMATE_INTEREST.ordinal()];
+            if (legitimateInterest != null && legitimateInterest.contains(vendorId)) {
+                return RestrictionType.NOT_ALLOWED;
+            }
+        }
+        return restrictionType;
+    }
+
+    /**
+     * Returns whether the vendor is restricted for the purpose.
+     */
+    public boolean isRestricted(int vendorId, int purposeId) {
+        return getRestriction(vendorId, purposeId) != null;
+    }
+
+    /**
+     * Returns the restrictions of the vendor in ascending order of their purpose id, one per
+     * purpose as returned by {@link #getRestriction(int, int)}, so their types may differ from
+     * {@link #getRestrictionType(int, int)}.
+     */
+    public List<PublisherRestriction> getRestrictions(int vendorId) {
+        List<PublisherRestriction> vendorRestrictions = new ArrayList<>();
+        for (int purposeId = 0; purposeId < purposes.length; purposeId++) {
+            PublisherRestriction restriction = getRestriction(vendorId, purposeId);
+            if (restriction != null) {
+                vendorRestrictions.add(restriction);
+            }
+        }
+        return vendorRestrictions;
+    }
+
+    /**
+     * Returns the vendors restricted for the purpose, whatever the restriction type.
+     */
+    public IntIterable getVendorIds(int purposeId) {
+        Purpose purpose = purpose(purposeId);
+        return purpose == null ? BitSetIntIterable.EMPTY : purpose.vendors;
+    }
+
+    /**
+     * Returns the vendors restricted for the purpose by a restriction of the given type.
+     */
+    public IntIterable getVendorIds(int purposeId, RestrictionType restrictionType) {
+        Purpose purpose = purpose(purposeId);
+        return purpose == null ? BitSetIntIterable.EMPTY : orEmpty(purpose.vendorsByType[restrictionType.ordinal()]);
+    }
+
+    /**
+     * Returns the vendors restricted for any purpose by a restriction of the given type.
+     */
+    public IntIterable getVendorIds(RestrictionType restrictionType) {
+        int type = restrictionType.ordinal();
+        IntIterable vendors = vendorsByType[type];
+        if (vendors == null) {
+            for (PublisherRestriction restriction : restrictions) {
+                if (restriction.getRestrictionType() == restrictionType) {
+                    vendors = or(vendors, restriction.getVendorIds());
+                }
+            }
+            vendors = orEmpty(vendors);
+            vendorsByType[type] = vendors;
+        }
+        return vendors;
+    }
+}
@@ -0,0 +1,134 @@
+package com.iabtcf;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Base64;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class Base64UrlDecoderTest {
+    Random r = new Random();
+
+    @Test
+    public void testDecodeRandom() {
+        for (int i = 0; i < 1000; i++) {
+            byte[] bytes = new byte[r.nextInt(256)];
+            r.nextBytes(bytes);
+
+            String padded = Base64.getUrlEncoder().encodeToString(bytes);
+            String unpadded = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+            assertArrayEquals(bytes, Base64UrlDecoder.decode(padded));
+            assertArrayEquals(bytes, Base64UrlDecoder.decode(unpadded));
+        }
+    }
+
+    @Test
+    public void testDecodeIntoWordsRandom() {
+        for (int i = 0; i < 1000; i++) {
+            byte[] bytes = new byte[r.nextInt(256)];
+            r.nextBytes(bytes);
+
+            String padded = "x." + Base64.getUrlEncoder().encodeToString(bytes);
+            String unpadded = "x." + Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+            for (String str : new String[] {padded, unpadded}) {
+                ByteBitVector bbv = ByteBitVector.decodeBase64(str, 2, str.length());
+                for (int j = 0; j < bytes.length; j++) {
+                    assertEquals(bytes[j] & 0xFF, bbv.readBits(j * 8, 8));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDecodeTCString() {
+        String str = "COrEAV4OrXx94ACABBENAHCIAD-AAAAAAACAAxAAAAgAIAwgAgAAAAEAgQAAAAAEAYQAQAAAACAAAABAAA";
+        assertArrayEquals(Base64.getUrlDecoder().decode(str), Base64UrlDecoder.decode(str));
+    }
+
+    @Test
+    public void testDecodeSlice() {
+        String str = "hello.cAAAAAAAITg=.world";
+        byte[] expected = Base64.getUrlDecoder().decode("cAAAAAAAITg=");
+
+        assertEquals(expected.length, Base64UrlDecoder.decodedLength(str, 6, 18));
+        assertArrayEquals(expected, Base64UrlDecoder.decode(str, 6, 18));
+
+        byte[] dst = new byte[expected.length + 2];
+        assertEquals(expected.length, Base64UrlDecoder.decode(str, 6, 18, dst, 2));
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], dst[i + 2]);
+        }
+    }
+
+    @Test
+    public void testDecodeEmpty() {
+        assertEquals(0, Base64UrlDecoder.decode("").length);
+    }
+
+    @Test
+    public void testSextet() {
+        assertEquals(0, Base64UrlDecoder.sextet('A'));
+        assertEquals(26, Base64UrlDecoder.sextet('a'));
+        assertEquals(52, Base64UrlDecoder.sextet('0'));
+        assertEquals(62, Base64UrlDecoder.sextet('-'));
+        assertEquals(63, Base64UrlDecoder.sextet('_'));
+        assertEquals(-1, Base64UrlDecoder.sextet('+'));
+        assertEquals(-1, Base64UrlDecoder.sextet('/'));
+        assertEquals(-1, Base64UrlDecoder.sextet('\u00e9'));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCharacter() {
+        Base64UrlDecoder.decode("COrE+V4O");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCharacterIntoWords() {
+        ByteBitVector.decodeBase64("COrE+V4O", 0, 8);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidTrailingCharacterIntoWords() {
+        ByteBitVector.decodeBase64("COrEA/", 0, 6);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidTrailingCharacter() {
+        Base64UrlDecoder.decode("COrEA/");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonLatin1Character() {
+        // U+0141 shares its low byte with 'A'
+        Base64UrlDecoder.decode("COrE\u0141V4O");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLength() {
+        Base64UrlDecoder.decode("COrEA");
+    }
+}
@@ -0,0 +1,116 @@
+package com.iabtcf;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class BitCursorTest {
+    Random r = new Random();
+
+    @Test
+    public void testSequentialReadsMatchVector() {
+        byte[] buffer = new byte[64];
+        r.nextBytes(buffer);
+        ByteBitVector bbv = new ByteBitVector(buffer);
+
+        for (int start = 0; start < 16; start++) {
+            BitCursor cursor = new BitCursor(bbv, start);
+            int offset = start;
+            while (true) {
+                int width = 1 + r.nextInt(ByteBitVector.MAX_READ_WIDTH);
+                if (offset + width > buffer.length * 8) {
+                    break;
+                }
+                assertEquals(bbv.readBits(offset, width), cursor.readBits(width));
+                offset += width;
+                assertEquals(offset, cursor.position());
+            }
+        }
+    }
+
+    @Test
+    public void testFixedWidthReads() {
+        ByteBitVector bbv = new ByteBitVector(new byte[] { (byte) 0xB0, 0x09, 0x1A, 0x2B, 0x38 });
+        BitCursor cursor = new BitCursor(bbv, 0);
+
+        assertEquals(true, cursor.readBits1());
+        assertEquals(0b01, cursor.readBits2());
+        assertEquals(0b100000, cursor.readBits6());
+        assertEquals(0x123, cursor.readBits12());
+        assertEquals(0x4567, cursor.readBits16());
+        assertEquals(37, cursor.position());
+    }
+
+    @Test
+    public void testSkipAndSeek() {
+        byte[] buffer = new byte[32];
+        r.nextBytes(buffer);
+        ByteBitVector bbv = new ByteBitVector(buffer);
+        BitCursor cursor = new BitCursor(bbv, 3);
+
+        cursor.skip(5);
+        assertEquals(bbv.readBits16(8), cursor.readBits16());
+        cursor.skip(100);
+        assertEquals(124, cursor.position());
+        assertEquals(bbv.readBits12(124), cursor.readBits12());
+        cursor.seek(7);
+        assertEquals(bbv.readBits(7, 57), cursor.readBits(57));
+        cursor.skip(0);
+        assertEquals(64, cursor.position());
+    }
+
+    @Test
+    public void testReadsLastBits() {
+        ByteBitVector bbv = new ByteBitVector(new byte[] { 0, 0, 0x0F });
+        BitCursor cursor = new BitCursor(bbv, 12);
+
+        assertEquals(0x00F, cursor.readBits12());
+        assertEquals(24, cursor.position());
+    }
+
+    @Test
+    public void testStreamVector() {
+        byte[] buffer = new byte[128];
+        r.nextBytes(buffer);
+        ByteBitVector expected = new ByteBitVector(buffer);
+        BitCursor cursor = new BitCursor(new ByteBitVector(new ByteArrayInputStream(buffer)), 0);
+
+        for (int offset = 0; offset + 17 <= buffer.length * 8; offset += 17) {
+            assertEquals(expected.readBits(offset, 17), cursor.readBits(17));
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testReadPastEnd() {
+        BitCursor cursor = new BitCursor(new ByteBitVector(new byte[2]), 4);
+        cursor.readBits(13);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testSeekPastEnd() {
+        new BitCursor(new ByteBitVector(new byte[2]), 17);
+    }
+}
@@ -23,6 +23,7 @@ package com.iabtcf;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
 import java.nio.ByteBuffer;
@@ -631,6 +632,27 @@ public class ByteBitVectorTest {
         assertFalse(bs.get(11));
     }
 
+    @Test
+    public void testBitsetFromIndex_Random() {
+        byte[] buffer = new byte[200];
+        r.nextBytes(buffer);
+        ByteBitVector bv = new ByteBitVector(buffer);
+
+        for (int fromIndex : new int[] {0, 1, 7, 63, 64, 100}) {
+            for (int offset = 0; offset < 70; offset += 3) {
+                for (int length : new int[] {0, 1, 55, 56, 57, 64, 65, 1000}) {
+                    BitSet expected = new BitSet();
+                    for (int i = 0; i < length; i++) {
+                        if (bv.readBits1(offset + i)) {
+                            expected.set(fromIndex + i);
+                        }
+                    }
+                    assertEquals(expected, bv.readBitSet(offset, length, fromIndex));
+                }
+            }
+        }
+    }
+
     /**
      * Test reading 36 bits with 5 and 6 bytes.
      */
@@ -679,4 +701,56 @@ public class ByteBitVectorTest {
         }
     }
 
+    @Test
+    public void testReadBitsN_Random() {
+        byte[] buffer = new byte[16];
+        r.nextBytes(buffer);
+        ByteBitVector bv = new ByteBitVector(buffer);
+
+        for (int width = 1; width <= ByteBitVector.MAX_READ_WIDTH; width++) {
+            for (int offset = 0; offset + width <= buffer.length * 8; offset++) {
+                long expected = 0;
+                for (int i = offset; i < offset + width; i++) {
+                    expected = expected << 1 | (buffer[i >> 3] >>> (7 - (i & 7)) & 1);
+                }
+                assertEquals(expected, bv.readBits(offset, width));
+            }
+        }
+    }
+
+    @Test
+    public void testReadPastEnd() {
+        ByteBitVector bv = new ByteBitVector(new byte[] {1, 2, 3});
+
+        assertEquals(0x010203, bv.readBits24(0));
+        for (int offset : new int[] {17, 24, 60}) {
+            try {
+                bv.readBits(offset, 8);
+                fail();
+            } catch (IndexOutOfBoundsException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testStreamReadsOneByteAtATime() {
+        byte[] buffer = new byte[5000];
+        r.nextBytes(buffer);
+        ByteBitVector expected = new ByteBitVector(buffer);
+        ByteBitVector actual = new ByteBitVector(new ByteArrayInputStream(buffer) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 1));
+            }
+        });
+
+        for (int offset = 0; offset + ByteBitVector.MAX_READ_WIDTH <= buffer.length * 8; offset += 13) {
+            assertEquals(expected.readBits12(offset), actual.readBits12(offset));
+            assertEquals(expected.readBits(offset, ByteBitVector.MAX_READ_WIDTH),
+                    actual.readBits(offset, ByteBitVector.MAX_READ_WIDTH));
+        }
+        assertTrue(actual.ensureReadable(0, buffer.length));
+        assertFalse(actual.ensureReadable(buffer.length - 1, 2));
+    }
 }
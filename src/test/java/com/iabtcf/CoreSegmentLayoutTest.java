@@ -0,0 +1,194 @@
+package com.iabtcf;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static com.iabtcf.CoreSegmentLayout.VENDOR_CONSENT;
+import static com.iabtcf.CoreSegmentLayout.VENDOR_LEGITIMATE_INTEREST;
+import static com.iabtcf.test.utils.BitStrings.base64FromBitString;
+import static com.iabtcf.test.utils.BitStrings.bits;
+import static com.iabtcf.test.utils.BitStrings.toBytes;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.BitSet;
+
+import org.junit.Test;
+
+import com.iabtcf.decoder.TCString;
+import com.iabtcf.utils.BitSetIntIterable;
+import com.iabtcf.v2.PublisherRestriction;
+import com.iabtcf.v2.RestrictionType;
+
+public class CoreSegmentLayoutTest {
+    private static final int HEADER_LENGTH = 213;
+
+    /**
+     * A core segment with range encoded vendor consents, bit field encoded vendor legitimate
+     * interests and two publisher restrictions.
+     */
+    private static byte[] coreSegment() {
+        StringBuilder sb = vendorSections();
+        // publisher restrictions
+        sb.append(bits(2, 12));
+        sb.append(bits(1, 6)).append(bits(1, 2)).append(bits(1, 12));
+        sb.append('1').append(bits(7, 16)).append(bits(9, 16));
+        sb.append(bits(2, 6)).append(bits(0, 2)).append(bits(0, 12));
+        return toBytes(sb.toString());
+    }
+
+    /**
+     * The bits of a core segment up to the end of its vendor legitimate interest section.
+     */
+    private static StringBuilder vendorSections() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(bits(2, 6));
+        while (sb.length() < HEADER_LENGTH) {
+            sb.append('0');
+        }
+        // vendor consents: max vendor id 20, range encoded, single 3 and range 10-12
+        sb.append(bits(20, 16)).append('1').append(bits(2, 12));
+        sb.append('0').append(bits(3, 16));
+        sb.append('1').append(bits(10, 16)).append(bits(12, 16));
+        // vendor legitimate interests: max vendor id 5, bit field 01001
+        sb.append(bits(5, 16)).append('0').append("01001");
+        return sb;
+    }
+
+    @Test
+    public void testVendorSections() {
+        CoreSegmentLayout layout = CoreSegmentLayout.scan(new ByteBitVector(coreSegment()));
+
+        int consentOffset = HEADER_LENGTH + 16 + 1;
+        assertEquals(20, layout.getMaxVendorId(VENDOR_CONSENT));
+        assertTrue(layout.isRangeEncoding(VENDOR_CONSENT));
+        assertEquals(consentOffset, layout.getFieldOffset(VENDOR_CONSENT));
+        assertEquals(consentOffset + 12 + 17 + 33, layout.getFieldEnd(VENDOR_CONSENT));
+        assertEquals(2, layout.getEntryCount(VENDOR_CONSENT));
+        assertEquals(consentOffset + 12, layout.getEntriesOffset(VENDOR_CONSENT));
+
+        int liOffset = layout.getFieldEnd(VENDOR_CONSENT) + 16 + 1;
+        assertEquals(5, layout.getMaxVendorId(VENDOR_LEGITIMATE_INTEREST));
+        assertFalse(layout.isRangeEncoding(VENDOR_LEGITIMATE_INTEREST));
+        assertEquals(liOffset, layout.getFieldOffset(VENDOR_LEGITIMATE_INTEREST));
+        assertEquals(liOffset + 5, layout.getFieldEnd(VENDOR_LEGITIMATE_INTEREST));
+        assertEquals(0, layout.getEntryCount(VENDOR_LEGITIMATE_INTEREST));
+    }
+
+    @Test
+    public void testPublisherRestrictions() {
+        CoreSegmentLayout layout = CoreSegmentLayout.scan(new ByteBitVector(coreSegment()));
+
+        int offset = layout.getFieldEnd(VENDOR_LEGITIMATE_INTEREST);
+        assertEquals(offset, layout.getPublisherRestrictionsOffset());
+        assertEquals(2, layout.getPublisherRestrictionCount());
+        assertEquals(offset + 12, layout.getPublisherRestrictionOffset(0));
+        assertEquals(1, layout.getPublisherRestrictionEntryCount(0));
+        assertEquals(offset + 12 + 8 + 12, layout.getPublisherRestrictionEntriesOffset(0));
+        assertEquals(offset + 12 + 8 + 12 + 33, layout.getPublisherRestrictionOffset(1));
+        assertEquals(0, layout.getPublisherRestrictionEntryCount(1));
+        assertEquals(offset + 12 + 2 * (8 + 12) + 33, layout.getPublisherRestrictionsEnd());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testRestrictionOutOfBounds() {
+        CoreSegmentLayout layout = CoreSegmentLayout.scan(new ByteBitVector(coreSegment()));
+        layout.getPublisherRestrictionEntriesOffset(2);
+    }
+
+    @Test
+    public void testScansSectionsOnDemand() {
+        // the publisher restrictions section announces a restriction that is missing
+        String bitString = vendorSections().append(bits(1, 12)).toString();
+        CoreSegmentLayout layout = CoreSegmentLayout.of(new ByteBitVector(toBytes(bitString)));
+
+        assertEquals(2, layout.getEntryCount(VENDOR_CONSENT));
+        assertEquals(5, layout.getMaxVendorId(VENDOR_LEGITIMATE_INTEREST));
+        assertEquals(bitString.length() - 12, layout.getPublisherRestrictionsOffset());
+
+        try {
+            layout.getPublisherRestrictionCount();
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+        assertEquals(2, layout.getEntryCount(VENDOR_CONSENT));
+    }
+
+    @Test
+    public void testDecodesVendorSectionsWithoutPublisherRestrictions() {
+        String bitString = vendorSections().toString();
+        TCString model = TCString.decode(base64FromBitString(bitString));
+
+        assertTrue(model.hasVendorConsent(11));
+        assertTrue(model.hasVendorLegitimateInterest(5));
+        assertEquals(new BitSetIntIterable(bitSet(3, 10, 11, 12)), model.getVendorConsent());
+        assertEquals(new BitSetIntIterable(bitSet(2, 5)), model.getVendorLegitimateInterest());
+    }
+
+    @Test
+    public void testHasVendorReadsEntriesUpToMatch() {
+        // the vendor consent section ends after its first entry
+        String bitString = vendorSections().substring(0, HEADER_LENGTH + 16 + 1 + 12 + 17);
+        TCString model = TCString.decode(base64FromBitString(bitString));
+
+        assertTrue(model.hasVendorConsent(3));
+    }
+
+    @Test
+    public void testPopulatesFieldCache() {
+        ByteBitVector scanned = new ByteBitVector(coreSegment());
+        CoreSegmentLayout.scan(scanned);
+        ByteBitVector computed = new ByteBitVector(coreSegment());
+
+        for (FieldDefs field : new FieldDefs[] { FieldDefs.CORE_VENDOR_BITRANGE_FIELD,
+                FieldDefs.CORE_VENDOR_LI_MAX_VENDOR_ID, FieldDefs.CORE_VENDOR_LI_IS_RANGE_ENCODING,
+                FieldDefs.CORE_VENDOR_LI_BITRANGE_FIELD, FieldDefs.CORE_NUM_PUB_RESTRICTION,
+                FieldDefs.CORE_PUB_RESTRICTION_ENTRY }) {
+            assertEquals(field.name(), field.getOffset(computed), field.getOffset(scanned));
+            assertEquals(field.name(), field.getLength(computed), field.getLength(scanned));
+        }
+    }
+
+    @Test
+    public void testDecodesSectionsFromLayout() {
+        TCString model = TCString.decode(Base64.getUrlEncoder().encodeToString(coreSegment()));
+
+        assertEquals(new BitSetIntIterable(bitSet(3, 10, 11, 12)), model.getVendorConsent());
+        assertEquals(new BitSetIntIterable(bitSet(2, 5)), model.getVendorLegitimateInterest());
+        assertEquals(Arrays.asList(
+                new PublisherRestriction(1, RestrictionType.REQUIRE_CONSENT,
+                        new BitSetIntIterable(bitSet(7, 8, 9))),
+                new PublisherRestriction(2, RestrictionType.NOT_ALLOWED, BitSetIntIterable.EMPTY)),
+                model.getPublisherRestrictions());
+    }
+
+    private static BitSet bitSet(int... values) {
+        BitSet bs = new BitSet();
+        for (int v : values) {
+            bs.set(v);
+        }
+        return bs;
+    }
+}
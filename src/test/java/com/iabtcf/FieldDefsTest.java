@@ -21,6 +21,7 @@ package com.iabtcf;
  */
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 
 import java.io.InputStream;
 import java.util.Base64;
@@ -110,4 +111,23 @@ public class FieldDefsTest {
         assertEquals(12 + (17 * (1 + 16)) + (2 * (1 + 16 + 16)),
                 FieldDefs.V1_VENDOR_BITRANGE_FIELD.getLength(bitVector));
     }
+
+    @Test
+    public void testDynamicFieldsAreResolvedPerVector() {
+        // the vendor consent sections of these segments have different lengths
+        ByteBitVector bitField =
+                new ByteBitVector(Base64.getUrlDecoder().decode("COtybn4PA_zT4KjACBENAPCIAEBAAECAAIAAAAAAAAAA"));
+        ByteBitVector range = new ByteBitVector(
+                Base64.getUrlDecoder().decode("COrEAV4OrXx94ACABBENAHCIAD-AAAAAAACAAxAAAAgAIAwgAgAAAAEAgQAAAAAEAYQAQAAAACAAAABAAA"));
+
+        int bitFieldOffset = FieldDefs.CORE_VENDOR_LI_MAX_VENDOR_ID.getOffset(bitField);
+        int rangeOffset = FieldDefs.CORE_VENDOR_LI_MAX_VENDOR_ID.getOffset(range);
+
+        assertEquals(230 + FieldDefs.CORE_VENDOR_BITRANGE_FIELD.getLength(bitField), bitFieldOffset);
+        assertEquals(230 + FieldDefs.CORE_VENDOR_BITRANGE_FIELD.getLength(range), rangeOffset);
+        assertNotEquals(bitFieldOffset, rangeOffset);
+        assertEquals(bitFieldOffset, FieldDefs.CORE_VENDOR_LI_MAX_VENDOR_ID.getOffset(bitField));
+        assertEquals(213, FieldDefs.CORE_VENDOR_MAX_VENDOR_ID.getOffset(bitField));
+        assertEquals(213, FieldDefs.CORE_VENDOR_MAX_VENDOR_ID.getOffset(range));
+    }
 }
@@ -0,0 +1,95 @@
+package com.iabtcf;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Base64;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LazyBase64SourceTest {
+    Random r = new Random();
+
+    @Test
+    public void testRandomReads() {
+        for (int i = 0; i < 100; i++) {
+            byte[] bytes = new byte[8 + r.nextInt(300)];
+            r.nextBytes(bytes);
+            String str = Base64.getUrlEncoder().encodeToString(bytes);
+
+            ByteBitVector expected = new ByteBitVector(bytes);
+            ByteBitVector actual = ByteBitVector.fromBase64(str, 0, str.length());
+
+            for (int j = 0; j < 200; j++) {
+                int offset = r.nextInt(bytes.length * 8 - 36);
+                assertEquals(expected.readBits1(offset), actual.readBits1(offset));
+                assertEquals(expected.readBits6(offset), actual.readBits6(offset));
+                assertEquals(expected.readBits12(offset), actual.readBits12(offset));
+                assertEquals(expected.readBits16(offset), actual.readBits16(offset));
+                assertEquals(expected.readBits36(offset), actual.readBits36(offset));
+            }
+        }
+    }
+
+    @Test
+    public void testDecodesCoveringQuartetsOnly() {
+        String str = "COtybn4PA_zT4KjACBENAPCIAEBAAECAAIAAAAAAAAAA";
+        ByteBitVector bv = ByteBitVector.fromBase64("xx." + str, 3, 3 + str.length());
+        LazyBase64Source source = (LazyBase64Source) bv.source();
+        assertEquals(0, source.decodedQuartets());
+
+        assertEquals(2, bv.readBits6(FieldDefs.CORE_VERSION));
+        assertEquals(1, source.decodedQuartets());
+
+        // bits 78 to 89 are stored in bytes 9 to 11, i.e. quartet 3
+        assertEquals(675, bv.readBits12(FieldDefs.CORE_CMP_ID));
+        assertEquals(2, source.decodedQuartets());
+
+        assertEquals(675, bv.readBits12(FieldDefs.CORE_CMP_ID));
+        assertEquals(2, source.decodedQuartets());
+
+        // bits 42 to 77 are stored in bytes 5 to 9, i.e. quartets 1 to 3
+        assertEquals(16122852600L, bv.readBits36(FieldDefs.CORE_LAST_UPDATED));
+        assertEquals(4, source.decodedQuartets());
+    }
+
+    @Test
+    public void testPadding() {
+        byte[] bytes = new byte[] {1, 2, 3, 4, 5};
+        String str = Base64.getUrlEncoder().encodeToString(bytes);
+        ByteBitVector bv = ByteBitVector.fromBase64(str, 0, str.length());
+        assertEquals(0x0405, bv.readBits16(24));
+        assertEquals(0x0102, bv.readBits16(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCharacter() {
+        String str = "COtybn4PA_zT4KjACBENAPCIAEBAAECAAIAAAAAAAA*A";
+        ByteBitVector.fromBase64(str, 0, str.length());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLength() {
+        ByteBitVector.fromBase64("COtyb", 0, 5);
+    }
+}
@@ -86,4 +86,18 @@ public class SegmentFactoryTest {
         text = IOUtils.toString(f1.get(), StandardCharsets.US_ASCII);
         assertEquals("hello", text);
     }
+
+    @Test
+    public void testResetSecondSegment() throws IOException {
+        LazySegmentFactory f = new LazySegmentFactory("hello.world");
+        f.next();
+        Supplier<InputStream> f2 = f.next();
+        String text = IOUtils.toString(f2.get(), StandardCharsets.US_ASCII);
+        assertEquals("world", text);
+
+        InputStream is = f2.get();
+        is.reset();
+        text = IOUtils.toString(is, StandardCharsets.US_ASCII);
+        assertEquals("world", text);
+    }
 }
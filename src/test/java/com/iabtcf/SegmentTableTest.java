@@ -0,0 +1,93 @@
+package com.iabtcf;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class SegmentTableTest {
+
+    private static void assertSegments(CharSequence src, String... expected) {
+        SegmentTable table = SegmentTable.scan(src);
+        assertEquals(expected.length, table.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], src.subSequence(table.start(i), table.end(i)).toString());
+            assertEquals(expected[i].isEmpty(), table.isEmpty(i));
+        }
+    }
+
+    @Test
+    public void testSingleSegment() {
+        assertSegments("hello", "hello");
+    }
+
+    @Test
+    public void testEmpty() {
+        assertSegments("", "");
+    }
+
+    @Test
+    public void testSegments() {
+        assertSegments("hello.world.x", "hello", "world", "x");
+    }
+
+    @Test
+    public void testEmptySegments() {
+        assertSegments("hello.", "hello", "");
+        assertSegments(".hello", "", "hello");
+        assertSegments("hello..world", "hello", "", "world");
+    }
+
+    @Test
+    public void testGrow() {
+        assertSegments("a.b.c.d.e.f.g.h.i", "a", "b", "c", "d", "e", "f", "g", "h", "i");
+    }
+
+    @Test
+    public void testCharSequence() {
+        assertSegments(new StringBuilder("hello.world"), "hello", "world");
+    }
+
+    @Test
+    public void testOffsets() {
+        SegmentTable table = SegmentTable.scan("ab.cde");
+        assertEquals(0, table.start(0));
+        assertEquals(2, table.end(0));
+        assertEquals(3, table.start(1));
+        assertEquals(6, table.end(1));
+        assertFalse(table.isEmpty(1));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testOutOfBounds() {
+        SegmentTable.scan("hello.world").start(2);
+    }
+
+    @Test
+    public void testSegmentEnd() {
+        assertEquals(5, SegmentInputStream.segmentEnd("hello.world", 0));
+        assertEquals(11, SegmentInputStream.segmentEnd("hello.world", 6));
+        assertTrue(SegmentInputStream.segmentEnd("hello.", 6) == 6);
+    }
+}
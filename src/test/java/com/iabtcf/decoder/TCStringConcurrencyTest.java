@@ -0,0 +1,146 @@
+package com.iabtcf.decoder;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import org.junit.Test;
+
+/**
+ * Decodes the same consent strings from several threads at once, reading the fields in a different
+ * order on every iteration, and checks that every thread sees the single threaded results.
+ */
+public class TCStringConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 2000;
+
+    private static final String[] CONSENT_STRINGS = {
+            "BOv5oL3Ov5oL3ABABBAAABAAAAABMAAA",
+            "BOv5oL3Ov5oL3ABABBAAABAAAAABOATAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAQAAAAAAAAAAAAAAAAAABAAAAAAAAAAAAAAAAAAAA",
+            "COtybn4PA_zT4KjACBENAPCIAEBAAECAAIAAAAAAAAAA",
+            "COrEAV4OrXx94ACABBENAHCIAD-AAAAAAACAAxAAAAgAIAwgAgAAAAEAgQAAAAAEAYQAQAAAACAAAABAAA",
+            "COrEAV4OrXx94ACABBENAHCIAD-AAAAAAACAAxAAAAgAIAwgAgAAAAEAgQAAAAAEAYQAQAAAACAAAABAAA"
+                    + ".IBAgAAAgAIAwgAgAAAAEAAAACA.QAagAQAgAIAwgA.cAAAAAAAITg=",
+            "COtybn4PA_zT4KjACBENAPCIAEBAAECAAIAAAAAAAAAA.IFoEUQQgAIQwgIwQABAEAAAAOIAACAIAAAAQAIAgEAACEAAAAAgAQBA"
+                    + "AAAAAAGBAAgAAAAAAAFAAECAAAgAAQARAEQAAAAAJAAIAAgAAAYQEAAAQmAgBC3ZAYzUw"
+    };
+
+    private static final List<Function<TCString, Object>> COMMON_FIELDS = Arrays.asList(
+            TCString::getVersion,
+            TCString::getCreated,
+            TCString::getLastUpdated,
+            TCString::getCmpId,
+            TCString::getCmpVersion,
+            TCString::getConsentLanguage,
+            TCString::getVendorListVersion,
+            TCString::getPurposesConsent,
+            TCString::getVendorConsent);
+
+    private static final List<Function<TCString, Object>> V2_FIELDS = Arrays.asList(
+            TCString::getTcfPolicyVersion,
+            TCString::getSpecialFeatureOptIns,
+            TCString::getPurposesLITransparency,
+            TCString::getPublisherCC,
+            TCString::getVendorLegitimateInterest,
+            TCString::getPublisherRestrictions,
+            TCString::getAllowedVendors,
+            TCString::getDisclosedVendors,
+            TCString::getPubPurposesConsent,
+            TCString::getCustomPurposesConsent);
+
+    private static List<Function<TCString, Object>> fields(TCString model) {
+        List<Function<TCString, Object>> fields = new ArrayList<>(COMMON_FIELDS);
+        if (model.getVersion() == 2) {
+            fields.addAll(V2_FIELDS);
+        }
+        return fields;
+    }
+
+    /**
+     * Reads the fields of a freshly decoded string in the specified order and returns their string
+     * values in declaration order.
+     */
+    private static String[] read(String consentString, Random order) {
+        TCString model = TCString.decode(consentString);
+        List<Function<TCString, Object>> fields = fields(model);
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = 0; i < fields.size(); i++) {
+            indexes.add(i);
+        }
+        if (order != null) {
+            Collections.shuffle(indexes, order);
+        }
+
+        String[] values = new String[fields.size()];
+        for (int i : indexes) {
+            values[i] = String.valueOf(fields.get(i).apply(model));
+        }
+        return values;
+    }
+
+    @Test
+    public void testConcurrentDecoding() throws Exception {
+        String[][] expected = new String[CONSENT_STRINGS.length][];
+        for (int i = 0; i < CONSENT_STRINGS.length; i++) {
+            expected[i] = read(CONSENT_STRINGS[i], null);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final int seed = t;
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        Random random = new Random(seed);
+                        start.await();
+                        for (int n = 0; n < ITERATIONS; n++) {
+                            int i = (seed + n) % CONSENT_STRINGS.length;
+                            assertArrayEquals(CONSENT_STRINGS[i], expected[i], read(CONSENT_STRINGS[i], random));
+                        }
+                        return null;
+                    }
+                }));
+            }
+
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
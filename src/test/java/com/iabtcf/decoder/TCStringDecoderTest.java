@@ -19,13 +19,19 @@ package com.iabtcf.decoder;
  * limitations under the License.
  * #L%
  */
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Base64;
 
 import org.junit.Test;
 
 public class TCStringDecoderTest {
+    private static final String TC_STRING =
+            "COrEAV4OrXx94ACABBENAHCIAD-AAAAAAACAAxAAAAgAIAwgAgAAAAEAgQAAAAAEAYQAQAAAACAAAABAAA.IBAgAAAgAIAwgAgAAAAEAAAACA.QAagAQAgAIAwgA.cAAAAAAAITg=";
 
     @Test
     public void testCanCreateModelFromTwoPartsString() {
@@ -45,4 +51,91 @@ public class TCStringDecoderTest {
         String tcString = Base64.getUrlEncoder().encodeToString(new byte[] { 13 });
         TCStringDecoder.decode(tcString);
     }
+
+    private static void assertSameModel(TCString expected, TCString actual) {
+        assertEquals(expected.getVersion(), actual.getVersion());
+        assertEquals(expected.getLastUpdated(), actual.getLastUpdated());
+        assertEquals(expected.getVendorConsent(), actual.getVendorConsent());
+        assertEquals(expected.getVendorLegitimateInterest(), actual.getVendorLegitimateInterest());
+        assertEquals(expected.getAllowedVendors(), actual.getAllowedVendors());
+        assertEquals(expected.getDisclosedVendors(), actual.getDisclosedVendors());
+        assertEquals(expected.getPubPurposesConsent(), actual.getPubPurposesConsent());
+    }
+
+    @Test
+    public void testDecodeCharSequence() {
+        TCString expected = TCString.decode(TC_STRING);
+        assertSameModel(expected, TCString.decode(new StringBuilder(TC_STRING)));
+    }
+
+    @Test
+    public void testDecodeByteArraySlice() {
+        byte[] request = ("tcf=" + TC_STRING + "&gdpr=1").getBytes(StandardCharsets.US_ASCII);
+
+        TCString expected = TCString.decode(TC_STRING);
+        assertSameModel(expected, TCString.decode(request, 4, TC_STRING.length()));
+    }
+
+    @Test
+    public void testDecodeHeapByteBuffer() {
+        ByteBuffer buffer = ByteBuffer.wrap(("tcf=" + TC_STRING).getBytes(StandardCharsets.US_ASCII));
+        buffer.position(4);
+
+        TCString expected = TCString.decode(TC_STRING);
+        assertSameModel(expected, TCString.decode(buffer.slice()));
+        assertSameModel(expected, TCString.decode(buffer));
+        assertEquals(4, buffer.position());
+    }
+
+    @Test
+    public void testDecodeDirectByteBuffer() {
+        byte[] bytes = ("tcf=" + TC_STRING).getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes);
+        buffer.position(4);
+
+        TCString expected = TCString.decode(TC_STRING);
+        assertSameModel(expected, TCString.decode(buffer));
+        assertEquals(4, buffer.position());
+        assertEquals(bytes.length, buffer.limit());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testDecodeInvalidSlice() {
+        byte[] bytes = TC_STRING.getBytes(StandardCharsets.US_ASCII);
+        TCString.decode(bytes, 1, bytes.length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodeNonAsciiBytes() {
+        byte[] bytes = TC_STRING.getBytes(StandardCharsets.US_ASCII);
+        bytes[3] = (byte) 0xC1;
+        TCString.decode(bytes, 0, bytes.length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodeInvalidCoreCharacter() {
+        char[] chars = TC_STRING.toCharArray();
+        chars[40] = '*';
+        TCString.decode(new String(chars));
+    }
+
+    @Test
+    public void testDecodeMutableCharSequence() {
+        StringBuilder sb = new StringBuilder(TC_STRING);
+        TCString tcModel = TCString.decode(sb);
+        sb.setLength(0);
+        sb.append(TC_STRING.replace('A', 'B'));
+
+        assertSameModel(TCString.decode(TC_STRING), tcModel);
+    }
+
+    @Test
+    public void testDecodeReusedBuffer() {
+        byte[] bytes = TC_STRING.getBytes(StandardCharsets.US_ASCII);
+        TCString tcModel = TCString.decode(bytes, 0, bytes.length);
+        Arrays.fill(bytes, (byte) 'A');
+
+        assertSameModel(TCString.decode(TC_STRING), tcModel);
+    }
 }
@@ -0,0 +1,85 @@
+package com.iabtcf.decoder;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+public class TCStringHeaderTest {
+    private static final String[] CONSENT_STRINGS = {
+            "BObdrPUOevsguAfDqFENCNAAAAAmeAAA",
+            "BOOzQoAOOzQoAAPAFSENCW-AIBA=",
+            "COtybn4PA_zT4KjACBENAPCIAEBAAECAAIAAAAAAAAAA",
+            "COrEAV4OrXx94ACABBENAHCIAD-AAAAAAACAAxAAAAgAIAwgAgAAAAEAgQAAAAAEAYQAQAAAACAAAABAAA.IBAgAAAgAIAwgAgAAAAEAAAACA"
+    };
+
+    @Test
+    public void testMatchesDecodedModel() {
+        for (String consentString : CONSENT_STRINGS) {
+            TCString model = TCString.decode(consentString);
+
+            assertEquals(model.getVersion(), TCStringHeader.getVersion(consentString));
+            assertEquals(model.getCreated().toEpochMilli(), TCStringHeader.getCreatedEpochMilli(consentString));
+            assertEquals(model.getLastUpdated().toEpochMilli(),
+                    TCStringHeader.getLastUpdatedEpochMilli(consentString));
+            assertEquals(model.getCmpId(), TCStringHeader.getCmpId(consentString));
+            assertEquals(model.getCmpVersion(), TCStringHeader.getCmpVersion(consentString));
+            assertEquals(model.getVendorListVersion(), TCStringHeader.getVendorListVersion(consentString));
+        }
+    }
+
+    @Test
+    public void testReadsOnlyHeaderCharacters() {
+        String header = CONSENT_STRINGS[2].substring(0, TCStringHeader.LENGTH);
+        String invalid = header + "!!!!";
+
+        assertEquals(22, TCStringHeader.LENGTH);
+        assertEquals(2, TCStringHeader.getVersion(invalid));
+        assertEquals(TCStringHeader.getVendorListVersion(CONSENT_STRINGS[2]),
+                TCStringHeader.getVendorListVersion(new StringBuilder(header)));
+    }
+
+    @Test
+    public void testTruncatedFieldsAreRejected() {
+        String truncated = CONSENT_STRINGS[2].substring(0, 13);
+
+        assertEquals(2, TCStringHeader.getVersion(truncated));
+        assertEquals(TCString.decode(CONSENT_STRINGS[2]).getLastUpdated().toEpochMilli(),
+                TCStringHeader.getLastUpdatedEpochMilli(truncated));
+        try {
+            TCStringHeader.getCmpId(truncated);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCharacter() {
+        TCStringHeader.getCreatedEpochMilli("COtyb!4PA_zT4KjACBENAPCIAEBAAECAAIAAAAAAAAAA");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyString() {
+        TCStringHeader.getVersion("");
+    }
+}
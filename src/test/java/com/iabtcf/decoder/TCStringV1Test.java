@@ -31,6 +31,7 @@ import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
 import java.time.Instant;
+import java.util.BitSet;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -174,4 +175,16 @@ public class TCStringV1Test {
         TCString model = parse("BOwBMFeOwBMFeABABBAAABAAAAAAGADgAUACgAHgAPg");
         assertTrue(model.getVendorConsent().contains(15));
     }
+
+    @Test
+    public void testCanVendorProcess() {
+        TCString model = parse("BOOzQoAOOzQoAAPAFSENCW-AIBACBAAABCA=");
+        assertTrue(model.canVendorProcessWithConsent(25, 1));
+        assertTrue(model.canVendorProcess(25, 24));
+        assertFalse(model.canVendorProcess(25, 6));
+        assertFalse(model.canVendorProcess(2, 1));
+        assertFalse(model.canVendorProcessWithLegitimateInterest(25, 1));
+        assertEquals(BitSet.valueOf(new long[] {0b101}), model.canVendorsProcess(1, 1, 2, 30));
+        assertTrue(model.canVendorsProcess(6, 1, 2, 30).isEmpty());
+    }
 }
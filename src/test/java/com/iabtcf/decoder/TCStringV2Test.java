@@ -19,23 +19,27 @@ package com.iabtcf.decoder;
  * limitations under the License.
  * #L%
  */
+import static com.iabtcf.test.utils.BitStrings.base64FromBitString;
+import static com.iabtcf.test.utils.BitStrings.bits;
 import static com.iabtcf.test.utils.IntIterableMatcher.matchInts;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
 import java.time.Instant;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Base64;
+import java.util.BitSet;
 import java.util.List;
 
 import org.junit.Test;
 
 import com.iabtcf.utils.BitSetIntIterable;
+import com.iabtcf.utils.CompactIntIterable;
 import com.iabtcf.utils.IntIterableUtils;
 import com.iabtcf.v2.PublisherRestriction;
+import com.iabtcf.v2.PublisherRestrictions;
 import com.iabtcf.v2.RestrictionType;
 
 public class TCStringV2Test {
@@ -47,24 +51,6 @@ public class TCStringV2Test {
         return model;
     }
 
-    static String base64FromBitString(String str) {
-        List<Byte> byteList = new ArrayList<>();
-        for (int i = 0; i < str.length();) {
-            String s = "";
-            for (int j = 0; j < 8 && i < str.length(); j++) {
-                s += str.charAt(i);
-                i++;
-            }
-            byteList.add((byte) Integer.parseInt(s, 2));
-        }
-        byte[] bytes = new byte[byteList.size()];
-        int i = 0;
-        for (Byte aByte : byteList) {
-            bytes[i++] = aByte;
-        }
-        return Base64.getUrlEncoder().encodeToString(bytes);
-    }
-
     /**
      * the string was created here https://www.iabtcf.com/#/encode
      */
@@ -230,4 +216,240 @@ public class TCStringV2Test {
         tcModel = parse(base64CoreString1Range);
         assertThat(tcModel.getVendorConsent(), matchInts(703));
     }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidOutOfBandSegment() {
+        // the disclosed vendors segment contains an invalid base64 character after its segment type
+        String tcString =
+                "COrEAV4OrXx94ACABBENAHCIAD-AAAAAAACAAxAAAAgAIAwgAgAAAAEAgQAAAAAEAYQAQAAAACAAAABAAA.IBAgAAAgAIAw*AgAAAAEAAAACA.QAagAQAgAIAwgA";
+        parse(tcString);
+    }
+
+    @Test
+    public void testFirstSegmentOfTypeWins() {
+        String tcString =
+                "COrEAV4OrXx94ACABBENAHCIAD-AAAAAAACAAxAAAAgAIAwgAgAAAAEAgQAAAAAEAYQAQAAAACAAAABAAA.QAagAQAgAIAwgA.IBAgAAAgAIAwgAgAAAAEAAAACA.QAAAAAAAAA";
+        TCString tcModel = parse(tcString);
+
+        assertThat(tcModel.getAllowedVendors(), matchInts(12, 23, 37, 47, 48, 53));
+        assertThat(tcModel.getDisclosedVendors(), matchInts(23, 37, 47, 48, 53, 65, 98, 129));
+    }
+
+    @Test
+    public void testFromBitVector() {
+        String core = "COrEAV4OrXx94ACABBENAHCIAD-AAAAAAACAAxAAAAgAIAwgAgAAAAEAgQAAAAAEAYQAQAAAACAAAABAAA";
+        String allowedVendors = "QAagAQAgAIAwgA";
+        TCString tcModel = TCStringV2.fromBitVector(
+                TCStringDecoder.vectorFromString(core, 0, core.length()),
+                TCStringDecoder.vectorFromString(allowedVendors, 0, allowedVendors.length()));
+
+        assertThat(tcModel.getAllowedVendors(), matchInts(12, 23, 37, 47, 48, 53));
+        assertTrue(tcModel.getDisclosedVendors().isEmpty());
+    }
+
+    private static void assertCompactEquals(String tcString) {
+        TCString expected = parse(tcString);
+        TCString compact = parse(tcString).compact();
+
+        assertEquals(expected.getVersion(), compact.getVersion());
+        assertEquals(expected.getCreated(), compact.getCreated());
+        assertEquals(expected.getLastUpdated(), compact.getLastUpdated());
+        assertEquals(expected.getCmpId(), compact.getCmpId());
+        assertEquals(expected.getCmpVersion(), compact.getCmpVersion());
+        assertEquals(expected.getConsentScreen(), compact.getConsentScreen());
+        assertEquals(expected.getConsentLanguage(), compact.getConsentLanguage());
+        assertEquals(expected.getVendorListVersion(), compact.getVendorListVersion());
+        assertEquals(expected.getTcfPolicyVersion(), compact.getTcfPolicyVersion());
+        assertEquals(expected.isServiceSpecific(), compact.isServiceSpecific());
+        assertEquals(expected.getUseNonStandardStacks(), compact.getUseNonStandardStacks());
+        assertEquals(expected.getSpecialFeatureOptIns(), compact.getSpecialFeatureOptIns());
+        assertEquals(expected.getPurposesConsent(), compact.getPurposesConsent());
+        assertEquals(expected.getPurposesLITransparency(), compact.getPurposesLITransparency());
+        assertEquals(expected.getPurposeOneTreatment(), compact.getPurposeOneTreatment());
+        assertEquals(expected.getPublisherCC(), compact.getPublisherCC());
+        assertEquals(expected.getVendorConsent(), compact.getVendorConsent());
+        assertEquals(expected.getVendorLegitimateInterest(), compact.getVendorLegitimateInterest());
+        assertEquals(expected.getPublisherRestrictions(), compact.getPublisherRestrictions());
+        assertEquals(expected.getAllowedVendors(), compact.getAllowedVendors());
+        assertEquals(expected.getDisclosedVendors(), compact.getDisclosedVendors());
+        assertEquals(expected.getPubPurposesConsent(), compact.getPubPurposesConsent());
+        assertEquals(expected.getPubPurposesLITransparency(), compact.getPubPurposesLITransparency());
+        assertEquals(expected.getCustomPurposesConsent(), compact.getCustomPurposesConsent());
+        assertEquals(expected.getCustomPurposesLITransparency(), compact.getCustomPurposesLITransparency());
+        assertTrue(compact.getVendorConsent() instanceof CompactIntIterable);
+        assertSame(compact, compact.compact());
+    }
+
+    @Test
+    public void testCompact() {
+        assertCompactEquals("COrEAV4OrXx94ACABBENAHCIAD-AAAAAAACAAxAAAAgAIAwgAgAAAAEAgQAAAAAEAYQAQAAAACAAAABAAA"
+                + ".IBAgAAAgAIAwgAgAAAAEAAAACA.QAagAQAgAIAwgA.cAAAAAAAITg=");
+        assertCompactEquals("COtybn4PA_zT4KjACBENAPCIAEBAAECAAIAAAAAAAAAA");
+    }
+
+    private static void assertHasVendor(String tcString) {
+        TCString expected = parse(tcString);
+        for (TCString tcModel : new TCString[] {parse(tcString), parse(tcString).compact()}) {
+            for (int vendorId = -1; vendorId < 800; vendorId++) {
+                assertEquals(expected.getVendorConsent().contains(vendorId), tcModel.hasVendorConsent(vendorId));
+                assertEquals(expected.getVendorLegitimateInterest().contains(vendorId),
+                        tcModel.hasVendorLegitimateInterest(vendorId));
+            }
+        }
+    }
+
+    @Test
+    public void testHasVendor() {
+        assertHasVendor("COrEAV4OrXx94ACABBENAHCIAD-AAAAAAACAAxAAAAgAIAwgAgAAAAEAgQAAAAAEAYQAQAAAACAAAABAAA");
+        assertHasVendor("COv__-wOv__-wC2AAAENAPCgAAAAAAAAAAAAA_wAQA_gEBABAEAAAA");
+        assertHasVendor("COwBOpCOwBOpCLqAAAENAPCAAAAAAAAAAAAAFfwAYFfAV-BVkAGBVYFWAAA");
+        assertHasVendor("COwBOpCOwBOpCLqAAAENAPCAAAAAAAAAAAAAFfwAQFfgUbABAUaAAA");
+
+        TCString tcModel =
+                parse("COrEAV4OrXx94ACABBENAHCIAD-AAAAAAACAAxAAAAgAIAwgAgAAAAEAgQAAAAAEAYQAQAAAACAAAABAAA");
+        assertTrue(tcModel.hasVendorConsent(23));
+        assertFalse(tcModel.hasVendorConsent(24));
+        assertTrue(tcModel.hasVendorLegitimateInterest(129));
+    }
+
+    @Test
+    public void testPublisherRestrictionIndex() {
+        String bitString =
+                "0000100011101011100"
+                        + "1000000000000001010"
+                        + "0000001110101110010"
+                        + "0000000000000101000"
+                        + "0000110011111000000"
+                        + "0000000000000000100"
+                        + "0011010000000011110"
+                        + "0001000000000000000"
+                        + "0000000000000000000"
+                        + "0000000000000000000"
+                        + "0000000000000000000"
+                        + "0000000000000000000"
+                        + "0000000000000000000"
+                        + "000000000010"
+                        + // NumPubRestrictions (2)
+                        "000001" + "01" + "000000000010"
+                        + // purpose 1, Require Consent, 2 entries
+                        "0" + "0000000000000101"
+                        + // vendor 5
+                        "1" + "0000000000001010" + "0000000000001100"
+                        + // vendors 10 to 12
+                        "000010" + "00" + "000000000001"
+                        + // purpose 2, Not Allowed, 1 entry
+                        "0" + "0000000000001010"
+                        + // vendor 10
+                        "0000000000"; // padding
+
+        TCString tcModel = parse(base64FromBitString(bitString));
+        PublisherRestrictions index = tcModel.getPublisherRestrictionIndex();
+
+        assertSame(index, tcModel.getPublisherRestrictionIndex());
+        assertEquals(RestrictionType.REQUIRE_CONSENT, index.getRestrictionType(11, 1));
+        assertEquals(RestrictionType.NOT_ALLOWED, index.getRestrictionType(10, 2));
+        assertEquals(null, index.getRestrictionType(11, 2));
+        assertThat(index.getVendorIds(1), matchInts(5, 10, 11, 12));
+        assertEquals(tcModel.getPublisherRestrictions(), index.getRestrictions(10));
+
+        TCString compact = parse(base64FromBitString(bitString)).compact();
+        assertEquals(RestrictionType.REQUIRE_CONSENT, compact.getPublisherRestrictionIndex().getRestrictionType(5, 1));
+    }
+
+    /**
+     * Returns a core segment with consent for purposes 1 to 3 and vendors 1, 2, 3 and 5, legitimate
+     * interest for purposes 1, 2 and 4 and vendors 2, 4, 5 and 6, and restrictions of vendor 2 for
+     * purpose 2 (not allowed), vendor 3 for purpose 3 (require legitimate interest) and vendor 4 for
+     * purpose 4 (require consent).
+     */
+    private static TCString decisionModel(boolean purposeOneTreatment) {
+        return decisionModel(purposeOneTreatment, restriction(2, 0, 2), restriction(3, 2, 3), restriction(4, 1, 4));
+    }
+
+    /**
+     * Returns a publisher restriction entry of the purpose and type for a single vendor.
+     */
+    private static String restriction(int purposeId, int restrictionType, int vendorId) {
+        return bits(purposeId, 6) + bits(restrictionType, 2) + bits(1, 12) + "0" + bits(vendorId, 16);
+    }
+
+    private static TCString decisionModel(boolean purposeOneTreatment, String... restrictions) {
+        String bitString = bits(2, 6) // Version
+                + bits(0, 36) + bits(0, 36) // Created, LastUpdated
+                + bits(1, 12) + bits(1, 12) + bits(1, 6) // CmpId, CmpVersion, ConsentScreen
+                + bits(0, 12) + bits(1, 12) + bits(2, 6) // ConsentLanguage, VendorListVersion, TcfPolicyVersion
+                + "0" + "0" + bits(0, 12) // IsServiceSpecific, UseNonStandardStacks, SpecialFeatureOptIns
+                + "111000000000000000000000" // PurposesConsent
+                + "110100000000000000000000" // PurposesLITransparency
+                + (purposeOneTreatment ? "1" : "0") + bits(0, 12) // PurposeOneTreatment, PublisherCC
+                + bits(6, 16) + "0" + "111010" // vendor consent bitfield
+                + bits(6, 16) + "0" + "010111" // vendor legitimate interest bitfield
+                + bits(restrictions.length, 12) // NumPubRestrictions
+                + String.join("", restrictions);
+        while (bitString.length() % 24 != 0) {
+            bitString += "0";
+        }
+        return parse(base64FromBitString(bitString));
+    }
+
+    @Test
+    public void testCanVendorProcess() {
+        TCString tcModel = decisionModel(false);
+
+        assertTrue(tcModel.canVendorProcessWithConsent(1, 1));
+        assertTrue(tcModel.canVendorProcessWithConsent(1, 2));
+        assertFalse(tcModel.canVendorProcessWithConsent(2, 2));
+        assertFalse(tcModel.canVendorProcessWithConsent(3, 3));
+        assertTrue(tcModel.canVendorProcessWithConsent(5, 3));
+        assertFalse(tcModel.canVendorProcessWithConsent(4, 1));
+        assertFalse(tcModel.canVendorProcessWithConsent(1, 4));
+
+        assertFalse(tcModel.canVendorProcessWithLegitimateInterest(2, 1));
+        assertFalse(tcModel.canVendorProcessWithLegitimateInterest(2, 2));
+        assertTrue(tcModel.canVendorProcessWithLegitimateInterest(5, 2));
+        assertFalse(tcModel.canVendorProcessWithLegitimateInterest(4, 4));
+        assertTrue(tcModel.canVendorProcessWithLegitimateInterest(6, 4));
+        assertFalse(tcModel.canVendorProcessWithLegitimateInterest(5, 3));
+
+        assertFalse(tcModel.canVendorProcess(3, 3));
+        assertFalse(tcModel.canVendorProcess(2, 2));
+        assertTrue(tcModel.canVendorProcess(4, 2));
+
+        BitSet expected = new BitSet();
+        expected.set(1);
+        expected.set(3, 7);
+        assertEquals(expected, tcModel.canVendorsProcess(2, 0, 1, 2, 3, 4, 5, 6, 7));
+
+        assertFalse(decisionModel(true).canVendorProcessWithConsent(1, 1));
+        assertTrue(decisionModel(true).canVendorProcessWithConsent(1, 2));
+    }
+
+    @Test
+    public void testDuplicateRestrictionsFailClosed() {
+        assertTrue(decisionModel(false, restriction(3, 1, 1)).canVendorProcessWithConsent(1, 3));
+
+        TCString tcModel = decisionModel(false, restriction(3, 1, 1), restriction(3, 0, 1),
+                restriction(2, 1, 5), restriction(2, 2, 5));
+
+        assertFalse(tcModel.canVendorProcessWithConsent(1, 3));
+        assertFalse(tcModel.canVendorProcessWithConsent(5, 2));
+        assertFalse(tcModel.canVendorProcessWithLegitimateInterest(5, 2));
+        assertTrue(tcModel.canVendorsProcess(2, 5).isEmpty());
+        assertTrue(tcModel.canVendorProcessWithConsent(1, 2));
+    }
+
+    @Test
+    public void testCanVendorsProcessMatchesCanVendorProcess() {
+        int[] vendorIds = {-1, 0, 1, 2, 3, 4, 5, 6, 7, 100};
+        for (TCString tcModel : new TCString[] {decisionModel(false), decisionModel(true),
+                decisionModel(false).compact(),
+                parse("COrEAV4OrXx94ACABBENAHCIAD-AAAAAAACAAxAAAAgAIAwgAgAAAAEAgQAAAAAEAYQAQAAAACAAAABAAA")}) {
+            for (int purposeId = 0; purposeId < 26; purposeId++) {
+                BitSet mask = tcModel.canVendorsProcess(purposeId, vendorIds);
+                for (int i = 0; i < vendorIds.length; i++) {
+                    assertEquals(tcModel.canVendorProcess(vendorIds[i], purposeId), mask.get(i));
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,59 @@
+package com.iabtcf.test.utils;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Base64;
+
+/**
+ * Builds encoded TC strings from strings of '0' and '1' characters.
+ */
+public final class BitStrings {
+    private BitStrings() {
+    }
+
+    /**
+     * Returns the value as a bit string of the given width, most significant bit first.
+     */
+    public static String bits(int value, int width) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = width - 1; i >= 0; i--) {
+            sb.append((value >>> i & 1) == 1 ? '1' : '0');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the bytes of the bit string, padded with zeros to a whole number of bytes.
+     */
+    public static byte[] toBytes(String bitString) {
+        byte[] bytes = new byte[(bitString.length() + 7) / 8];
+        for (int i = 0; i < bitString.length(); i++) {
+            if (bitString.charAt(i) == '1') {
+                bytes[i >> 3] |= 0x80 >>> (i & 7);
+            }
+        }
+        return bytes;
+    }
+
+    public static String base64FromBitString(String bitString) {
+        return Base64.getUrlEncoder().encodeToString(toBytes(bitString));
+    }
+}
@@ -0,0 +1,102 @@
+package com.iabtcf.utils;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.iabtcf.ByteBitVector;
+
+public class BitVectorIntIterableTest {
+    Random r = new Random();
+
+    @Test
+    public void testMatchesBitSet() {
+        byte[] buffer = new byte[64];
+        r.nextBytes(buffer);
+        ByteBitVector bbv = new ByteBitVector(buffer);
+
+        for (int offset : new int[] {0, 3, 17}) {
+            for (int length : new int[] {0, 1, 55, 56, 57, 300}) {
+                BitVectorIntIterable view = new BitVectorIntIterable(bbv, offset, length, 1);
+                BitSetIntIterable expected = new BitSetIntIterable(bbv.readBitSet(offset, length, 1));
+
+                assertEquals(expected, view);
+                assertEquals(view, expected);
+                assertEquals(expected.hashCode(), view.hashCode());
+                assertEquals(expected.toString(), view.toString());
+                assertEquals(expected.isEmpty(), view.isEmpty());
+                assertEquals(IntIterableUtils.toSet(expected), IntIterableUtils.toSet(view));
+                for (int i = -1; i <= length + 1; i++) {
+                    assertEquals(expected.contains(i), view.contains(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+        BitVectorIntIterable view = new BitVectorIntIterable(new ByteBitVector(new byte[20]), 4, 120, 1);
+
+        assertTrue(view.isEmpty());
+        assertFalse(view.intIterator().hasNext());
+        assertEquals(BitSetIntIterable.EMPTY, view);
+    }
+
+    @Test
+    public void testContainsAll() {
+        BitVectorIntIterable view =
+                new BitVectorIntIterable(new ByteBitVector(new byte[] {(byte) 0b10100000, 1}), 0, 16, 1);
+
+        assertTrue(view.containsAll(1, 3, 16));
+        assertFalse(view.containsAll(1, 2));
+        assertFalse(view.contains(17));
+    }
+
+    @Test
+    public void testNotEqualToDifferentValues() {
+        ByteBitVector bbv = new ByteBitVector(new byte[] {(byte) 0b10100000});
+        BitSet bs = new BitSet();
+        bs.set(1);
+
+        assertFalse(new BitVectorIntIterable(bbv, 0, 8, 1).equals(new BitSetIntIterable(bs)));
+        assertFalse(new BitSetIntIterable(bs).equals(new BitVectorIntIterable(bbv, 0, 8, 1)));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testFieldOutOfBounds() {
+        new BitVectorIntIterable(new ByteBitVector(new byte[2]), 4, 13, 1);
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testIteratorExhausted() {
+        IntIterator it = new BitVectorIntIterable(new ByteBitVector(new byte[] {(byte) 0x80}), 0, 8, 1).intIterator();
+        assertEquals(1, it.nextInt());
+        it.nextInt();
+    }
+}
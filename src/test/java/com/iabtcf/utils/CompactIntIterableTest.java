@@ -0,0 +1,134 @@
+package com.iabtcf.utils;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class CompactIntIterableTest {
+    Random r = new Random();
+
+    private static void assertSameValues(BitSet expected, CompactIntIterable actual) {
+        assertEquals(new BitSetIntIterable(expected), actual);
+        assertEquals(actual, new BitSetIntIterable(expected));
+        assertEquals(expected.isEmpty(), actual.isEmpty());
+        for (int i = 0; i < expected.length() + 70000; i += 7) {
+            assertEquals(expected.get(i), actual.contains(i));
+        }
+        for (int i = expected.nextSetBit(0); i >= 0; i = expected.nextSetBit(i + 1)) {
+            assertTrue(actual.contains(i));
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+        assertSame(CompactIntIterable.EMPTY, CompactIntIterable.of(BitSetIntIterable.EMPTY));
+        assertTrue(CompactIntIterable.EMPTY.isEmpty());
+        assertFalse(CompactIntIterable.EMPTY.contains(0));
+        assertFalse(CompactIntIterable.EMPTY.intIterator().hasNext());
+    }
+
+    @Test
+    public void testSparseUsesArray() {
+        BitSet bs = new BitSet();
+        for (int i = 0; i < 100; i++) {
+            bs.set(r.nextInt(3000) * 3);
+        }
+        CompactIntIterable compact = CompactIntIterable.of(new BitSetIntIterable(bs));
+
+        assertSameValues(bs, compact);
+        assertEquals(2 + 2 * bs.cardinality(), compact.sizeInBytes());
+    }
+
+    @Test
+    public void testDenseUsesBitmap() {
+        BitSet bs = new BitSet();
+        for (int i = 0; i < 1000; i++) {
+            if (r.nextBoolean()) {
+                bs.set(i);
+            }
+        }
+        bs.set(1000);
+        CompactIntIterable compact = CompactIntIterable.of(new BitSetIntIterable(bs));
+
+        assertSameValues(bs, compact);
+        assertEquals(2 + 16 * 8, compact.sizeInBytes());
+    }
+
+    @Test
+    public void testRangesUseRuns() {
+        RangeIntIterable ranges = RangeIntIterable.builder().add(1, 60000).add(60002, 65535).build();
+        CompactIntIterable compact = CompactIntIterable.of(ranges);
+
+        BitSet bs = new BitSet();
+        bs.set(1, 60001);
+        bs.set(60002, 65536);
+        assertSameValues(bs, compact);
+        assertEquals(2 + 2 * 4, compact.sizeInBytes());
+    }
+
+    @Test
+    public void testMultipleChunks() {
+        BitSet bs = new BitSet();
+        bs.set(5);
+        bs.set(65530, 65545);
+        bs.set(200000, 260000);
+        for (int i = 0; i < 50; i++) {
+            bs.set(400000 + r.nextInt(1000));
+        }
+
+        assertSameValues(bs, CompactIntIterable.of(new BitSetIntIterable(bs)));
+
+        RangeIntIterable.Builder builder = RangeIntIterable.builder();
+        for (int i = bs.nextSetBit(0); i >= 0; i = bs.nextSetBit(i + 1)) {
+            builder.add(i);
+        }
+        assertSameValues(bs, CompactIntIterable.of(builder.build()));
+    }
+
+    @Test
+    public void testContainsNegative() {
+        CompactIntIterable compact = CompactIntIterable.of(RangeIntIterable.builder().add(0, 10).build());
+        assertFalse(compact.contains(-1));
+        assertTrue(compact.containsAll(0, 10));
+        assertFalse(compact.containsAll(0, 11));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeValue() {
+        CompactIntIterable.of(RangeIntIterable.builder().add(-5, 3).build());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testIteratorExhausted() {
+        IntIterator it = CompactIntIterable.of(RangeIntIterable.builder().add(3).build()).intIterator();
+        assertEquals(3, it.nextInt());
+        it.nextInt();
+    }
+}
@@ -0,0 +1,291 @@
+package com.iabtcf.utils;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Spliterator;
+
+import org.junit.Test;
+
+public class IntIterableTest {
+    private final Random r = new Random();
+
+    /**
+     * Returns the representations of bs, including a view that answers with the default methods.
+     */
+    private static IntIterable[] all(BitSet bs) {
+        IntIterable[] representations = IntIterableUtilsTest.representations(bs);
+        IntIterable[] all = new IntIterable[representations.length + 1];
+        System.arraycopy(representations, 0, all, 0, representations.length);
+        all[representations.length] = IntIterableUtils.orView(representations[0], RangeIntIterable.EMPTY);
+        return all;
+    }
+
+    private void assertQueries(BitSet bs) {
+        int cardinality = bs.cardinality();
+        for (IntIterable it : all(bs)) {
+            String name = it.getClass().getName();
+            assertEquals(name, cardinality, it.cardinality());
+            assertEquals(name, bs.nextSetBit(0), it.min());
+            assertEquals(name, bs.length() - 1, it.max());
+            for (int v = -1; v <= bs.length() + 1; v += 1 + r.nextInt(Math.max(7, bs.length() / 100))) {
+                assertEquals(name, v < 0 ? 0 : bs.get(0, v + 1).cardinality(), it.rank(v));
+            }
+            assertEquals(name, cardinality, it.rank(Integer.MAX_VALUE));
+            assertEquals(name, 0, it.rank(Integer.MIN_VALUE));
+
+            int k = 0;
+            for (int i = bs.nextSetBit(0); i >= 0; i = bs.nextSetBit(i + 1), k++) {
+                assertEquals(name, i, it.select(k));
+                assertEquals(name, k + 1, it.rank(i));
+            }
+
+            BitSet seen = new BitSet();
+            int[] last = {-1};
+            it.forEachInt(v -> {
+                assertEquals(name, bs.nextSetBit(last[0] + 1), v);
+                last[0] = v;
+                seen.set(v);
+            });
+            assertEquals(name, bs, seen);
+        }
+    }
+
+    @Test
+    public void testQueries() {
+        for (int n = 0; n < 20; n++) {
+            BitSet bs = new BitSet();
+            int density = 1 + r.nextInt(3);
+            for (int i = 0; i < 500; i++) {
+                if (r.nextInt(4) < density) {
+                    bs.set(i);
+                }
+            }
+            assertQueries(bs);
+        }
+    }
+
+    @Test
+    public void testQueriesAcrossChunks() {
+        BitSet bs = new BitSet();
+        bs.set(3);
+        bs.set(65530, 65540);
+        bs.set(131072);
+        bs.set(200000);
+        assertQueries(bs);
+    }
+
+    @Test
+    public void testSingleValue() {
+        BitSet bs = new BitSet();
+        bs.set(0);
+        assertQueries(bs);
+        bs.clear(0);
+        bs.set(55);
+        assertQueries(bs);
+        bs.set(56);
+        assertQueries(bs);
+    }
+
+    @Test
+    public void testEmpty() {
+        for (IntIterable it : all(new BitSet())) {
+            String name = it.getClass().getName();
+            assertEquals(name, 0, it.cardinality());
+            assertEquals(name, 0, it.rank(10));
+            try {
+                it.min();
+                fail(name);
+            } catch (NoSuchElementException e) {
+                // expected
+            }
+            try {
+                it.max();
+                fail(name);
+            } catch (NoSuchElementException e) {
+                // expected
+            }
+            it.forEachInt(v -> fail(name));
+        }
+    }
+
+    @Test
+    public void testSelectOutOfBounds() {
+        BitSet bs = new BitSet();
+        bs.set(1, 4);
+        bs.set(100);
+        for (IntIterable it : all(bs)) {
+            for (int k : new int[] {-1, 4, 5}) {
+                try {
+                    it.select(k);
+                    fail(it.getClass().getName() + " " + k);
+                } catch (IndexOutOfBoundsException e) {
+                    // expected
+                }
+            }
+        }
+    }
+
+    /**
+     * Splits s recursively, checking that the sizes are exact, and appends the values to values.
+     */
+    private static void splitAll(String name, Spliterator.OfInt s, BitSet values, int[] last) {
+        assertTrue(name, s.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.SORTED));
+        long size = s.estimateSize();
+        Spliterator.OfInt prefix = s.trySplit();
+        if (prefix != null) {
+            assertEquals(name, size, prefix.estimateSize() + s.estimateSize());
+            splitAll(name, prefix, values, last);
+            splitAll(name, s, values, last);
+            return;
+        }
+        long[] n = {0};
+        s.forEachRemaining((int v) -> {
+            assertTrue(name, v > last[0]);
+            last[0] = v;
+            values.set(v);
+            n[0]++;
+        });
+        assertEquals(name, size, n[0]);
+    }
+
+    @Test
+    public void testSpliterator() {
+        BitSet bs = new BitSet();
+        bs.set(1, 4);
+        bs.set(100);
+        bs.set(130, 1000);
+        for (int i = 1000; i < 3000; i += 1 + r.nextInt(5)) {
+            bs.set(i);
+        }
+        for (IntIterable it : all(bs)) {
+            String name = it.getClass().getName();
+            BitSet values = new BitSet();
+            splitAll(name, it.spliterator(), values, new int[] {-1});
+            assertEquals(name, bs, values);
+
+            assertArrayEquals(name, bs.stream().toArray(), IntIterableUtils.toStream(it, true).toArray());
+            assertEquals(name, bs.stream().sum(), IntIterableUtils.toStream(it, true).sum());
+            assertEquals(name, bs.cardinality(), IntIterableUtils.toStream(it, true).count());
+        }
+    }
+
+    @Test
+    public void testSpliteratorAdvance() {
+        BitSet bs = new BitSet();
+        bs.set(64);
+        bs.set(70, 73);
+        for (IntIterable it : all(bs)) {
+            String name = it.getClass().getName();
+            Spliterator.OfInt s = it.spliterator();
+            assertEquals(name, 4, s.estimateSize());
+            int[] value = new int[1];
+            for (int expected : new int[] {64, 70, 71, 72}) {
+                assertTrue(name, s.tryAdvance((int v) -> value[0] = v));
+                assertEquals(name, expected, value[0]);
+            }
+            assertTrue(name, !s.tryAdvance((int v) -> fail(name)));
+        }
+    }
+
+    @Test
+    public void testExport() {
+        BitSet bs = new BitSet();
+        bs.set(0);
+        bs.set(63, 66);
+        bs.set(700);
+        for (IntIterable it : all(bs)) {
+            String name = it.getClass().getName();
+            assertArrayEquals(name, bs.stream().toArray(), it.toArray());
+            assertArrayEquals(name, bs.toLongArray(), it.toLongArray());
+
+            BitSet copy = it.toBitSet();
+            assertEquals(name, bs, copy);
+            copy.clear();
+            assertEquals(name, bs.cardinality(), it.cardinality());
+        }
+        for (IntIterable it : all(new BitSet())) {
+            assertEquals(0, it.toArray().length);
+            assertEquals(0, it.toLongArray().length);
+            assertTrue(it.toBitSet().isEmpty());
+        }
+    }
+
+    private void assertBatchQueries(BitSet bs, int[] source) {
+        int[] expected = Arrays.stream(source).filter(v -> v >= 0 && bs.get(v)).toArray();
+        BitSet mask = new BitSet();
+        for (int i = 0; i < source.length; i++) {
+            if (source[i] >= 0 && bs.get(source[i])) {
+                mask.set(i);
+            }
+        }
+        for (IntIterable it : all(bs)) {
+            String name = it.getClass().getName() + " " + Arrays.toString(source);
+            assertArrayEquals(name, expected, it.filter(source));
+            assertEquals(name, mask, it.containsEach(source));
+            assertEquals(name, expected.length > 0, it.containsAny(source));
+            assertEquals(name, expected.length == source.length, it.containsAll(source));
+        }
+    }
+
+    @Test
+    public void testBatchQueries() {
+        for (int n = 0; n < 20; n++) {
+            BitSet bs = new BitSet();
+            for (int i = r.nextInt(10); i < 600; i += 1 + r.nextInt(20)) {
+                bs.set(i, i + 1 + r.nextInt(10));
+            }
+            int[] source = new int[1 + r.nextInt(200)];
+            for (int i = 0; i < source.length; i++) {
+                source[i] = r.nextInt(650) - 10;
+            }
+            assertBatchQueries(bs, source);
+            Arrays.sort(source);
+            assertBatchQueries(bs, source);
+        }
+    }
+
+    @Test
+    public void testBatchQueriesEdges() {
+        BitSet bs = new BitSet();
+        bs.set(5, 10);
+        bs.set(20);
+        assertBatchQueries(bs, new int[0]);
+        assertBatchQueries(bs, new int[] {-1, 5, 9});
+        assertBatchQueries(bs, new int[] {5, 6, 20});
+        assertBatchQueries(bs, new int[] {20, 5, 20, 4});
+        assertBatchQueries(bs, new int[] {Integer.MIN_VALUE, 10, 21, Integer.MAX_VALUE});
+        assertBatchQueries(new BitSet(), new int[] {0, 1});
+        for (IntIterable it : all(bs)) {
+            assertFalse(it.contains(-1));
+            assertFalse(it.contains(Integer.MIN_VALUE));
+        }
+    }
+}
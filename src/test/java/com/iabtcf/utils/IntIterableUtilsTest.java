@@ -21,15 +21,21 @@ package com.iabtcf.utils;
  */
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.util.Arrays;
 import java.util.BitSet;
+import java.util.Random;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 import org.junit.Test;
 
+import com.iabtcf.ByteBitVector;
+
 public class IntIterableUtilsTest {
     @Test
     public void testToSet() {
@@ -54,4 +60,161 @@ public class IntIterableUtilsTest {
 
         assertEquals(new TreeSet<>(Arrays.asList(0, 1, 512)), l);
     }
+
+    private static final int MAX = 300;
+
+    private final Random r = new Random();
+
+    private BitSet randomBitSet() {
+        BitSet bs = new BitSet();
+        int density = r.nextInt(4);
+        for (int i = 0; i < MAX; i++) {
+            if (r.nextInt(4) < density) {
+                bs.set(i);
+            }
+        }
+        return bs;
+    }
+
+    /**
+     * Returns the values of bs in each IntIterable implementation.
+     */
+    static IntIterable[] representations(BitSet bs) {
+        byte[] buffer = new byte[bs.length() / 8 + 1];
+        RangeIntIterable.Builder b = RangeIntIterable.builder();
+        for (int i = bs.nextSetBit(0); i >= 0; i = bs.nextSetBit(i + 1)) {
+            buffer[i / 8] |= 0x80 >>> (i % 8);
+            b.add(i);
+        }
+        BitSetIntIterable bsi = new BitSetIntIterable(bs);
+        return new IntIterable[] {bsi, new BitVectorIntIterable(new ByteBitVector(buffer), 0, bs.length(), 0), b.build(),
+                CompactIntIterable.of(bsi)};
+    }
+
+    @Test
+    public void testHashCode() {
+        for (int n = 0; n < 20; n++) {
+            BitSet x = randomBitSet();
+            int expected = IntIterableUtils.hashCode(new BitSetIntIterable(x));
+            for (IntIterable it : representations(x)) {
+                assertEquals(expected, it.hashCode());
+                assertEquals(expected, it.hashCode());
+            }
+        }
+
+        BitSet a = new BitSet();
+        a.set(1);
+        a.set(4);
+        BitSet b = new BitSet();
+        b.set(2);
+        b.set(3);
+        assertNotEquals(new BitSetIntIterable(a).hashCode(), new BitSetIntIterable(b).hashCode());
+
+        // {0, 62} and {1, 31} collide under 31 * h + v
+        assertNotEquals(IntIterableUtils.hashCode(RangeIntIterable.builder().add(0, 0).add(62, 62).build()),
+                IntIterableUtils.hashCode(RangeIntIterable.builder().add(1, 1).add(31, 31).build()));
+    }
+
+    @Test
+    public void testSetAlgebra() {
+        for (int n = 0; n < 20; n++) {
+            BitSet x = randomBitSet();
+            BitSet y = randomBitSet();
+            BitSet and = (BitSet) x.clone();
+            and.and(y);
+            BitSet or = (BitSet) x.clone();
+            or.or(y);
+            BitSet andNot = (BitSet) x.clone();
+            andNot.andNot(y);
+
+            for (IntIterable a : representations(x)) {
+                for (IntIterable b : representations(y)) {
+                    assertEquals(new BitSetIntIterable(and), IntIterableUtils.and(a, b));
+                    assertEquals(new BitSetIntIterable(or), IntIterableUtils.or(a, b));
+                    assertEquals(new BitSetIntIterable(andNot), IntIterableUtils.andNot(a, b));
+                    assertEquals(new BitSetIntIterable(and), IntIterableUtils.andView(a, b));
+                    assertEquals(new BitSetIntIterable(or), IntIterableUtils.orView(a, b));
+                    assertEquals(new BitSetIntIterable(andNot), IntIterableUtils.andNotView(a, b));
+                    assertEquals(x.intersects(y), IntIterableUtils.intersects(a, b));
+                    assertEquals(and.cardinality(), IntIterableUtils.intersectionCardinality(a, b));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testViewContains() {
+        BitSet x = randomBitSet();
+        BitSet y = randomBitSet();
+        IntIterable a = new BitSetIntIterable(x);
+        IntIterable b = representations(y)[2];
+
+        IntIterable and = IntIterableUtils.andView(a, b);
+        IntIterable or = IntIterableUtils.orView(a, b);
+        IntIterable andNot = IntIterableUtils.andNotView(a, b);
+        for (int i = 0; i <= MAX; i++) {
+            assertEquals(x.get(i) && y.get(i), and.contains(i));
+            assertEquals(x.get(i) || y.get(i), or.contains(i));
+            assertEquals(x.get(i) && !y.get(i), andNot.contains(i));
+        }
+        assertFalse(or.contains(-1));
+    }
+
+    @Test
+    public void testViewsOfEmpty() {
+        BitSet bs = new BitSet();
+        bs.set(3);
+        IntIterable a = new BitSetIntIterable(bs);
+
+        assertTrue(IntIterableUtils.andView(a, RangeIntIterable.EMPTY).isEmpty());
+        assertFalse(IntIterableUtils.orView(RangeIntIterable.EMPTY, a).isEmpty());
+        assertTrue(IntIterableUtils.andNotView(a, a).isEmpty());
+        assertTrue(IntIterableUtils.orView(a, a).containsAll(3));
+        assertFalse(IntIterableUtils.intersects(a, RangeIntIterable.EMPTY));
+        assertEquals(0, IntIterableUtils.intersectionCardinality(RangeIntIterable.EMPTY, a));
+    }
+
+    @Test
+    public void testOperandsNotModified() {
+        BitSet x = randomBitSet();
+        BitSet y = randomBitSet();
+        BitSet xc = (BitSet) x.clone();
+
+        IntIterableUtils.and(new BitSetIntIterable(x), new BitSetIntIterable(y));
+        IntIterableUtils.or(new BitSetIntIterable(x), new BitSetIntIterable(y));
+        IntIterableUtils.andNot(new BitSetIntIterable(x), new BitSetIntIterable(y));
+        IntIterableUtils.intersectionCardinality(new BitSetIntIterable(x), new BitSetIntIterable(y));
+        IntIterable ranges = representations(y)[2];
+        IntIterableUtils.and(new BitSetIntIterable(x), ranges);
+        IntIterableUtils.or(new BitSetIntIterable(x), ranges);
+        IntIterableUtils.andNot(new BitSetIntIterable(x), ranges);
+        IntIterableUtils.andNot(ranges, new BitSetIntIterable(x));
+        assertEquals(xc, x);
+    }
+
+    @Test
+    public void testRangesAreMergedAsRanges() {
+        RangeIntIterable all = RangeIntIterable.builder().add(1, 65535).build();
+        RangeIntIterable some = RangeIntIterable.builder().add(10, 20).add(70000, 70010).build();
+        BitSet bs = new BitSet();
+        bs.set(5, 8);
+        bs.set(100);
+
+        IntIterable and = IntIterableUtils.and(all, some);
+        assertTrue(and instanceof RangeIntIterable);
+        assertEquals(1, ((RangeIntIterable) and).rangeCount());
+        assertEquals(11, and.cardinality());
+
+        IntIterable or = IntIterableUtils.or(all, some);
+        assertTrue(or instanceof RangeIntIterable);
+        assertEquals(2, ((RangeIntIterable) or).rangeCount());
+
+        IntIterable andNot = IntIterableUtils.andNot(all, new BitSetIntIterable(bs));
+        assertTrue(andNot instanceof RangeIntIterable);
+        assertEquals(65535 - 4, andNot.cardinality());
+        assertFalse(andNot.containsAny(5, 6, 7, 100));
+
+        assertEquals(4, IntIterableUtils.intersectionCardinality(all, new BitSetIntIterable(bs)));
+        assertEquals(11, IntIterableUtils.intersectionCardinality(some, all));
+    }
 }
@@ -0,0 +1,146 @@
+package com.iabtcf.utils;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class RangeIntIterableTest {
+    Random r = new Random();
+
+    @Test
+    public void testEmpty() {
+        RangeIntIterable e = RangeIntIterable.builder().build();
+        assertSame(RangeIntIterable.EMPTY, e);
+        assertTrue(e.isEmpty());
+        assertFalse(e.contains(0));
+        assertFalse(e.intIterator().hasNext());
+        assertEquals(BitSetIntIterable.EMPTY, e);
+    }
+
+    @Test
+    public void testMergesOverlappingAndAdjacentRanges() {
+        RangeIntIterable ranges = RangeIntIterable.builder()
+                .add(20, 30)
+                .add(1, 5)
+                .add(6)
+                .add(25, 40)
+                .add(50, 49)
+                .add(3)
+                .build();
+
+        assertEquals(2, ranges.rangeCount());
+        assertEquals(1, ranges.rangeStart(0));
+        assertEquals(6, ranges.rangeEnd(0));
+        assertEquals(20, ranges.rangeStart(1));
+        assertEquals(40, ranges.rangeEnd(1));
+        assertFalse(ranges.contains(0));
+        assertTrue(ranges.contains(6));
+        assertFalse(ranges.contains(7));
+        assertTrue(ranges.containsAll(1, 20, 40));
+        assertFalse(ranges.contains(41));
+        assertEquals("{1, 2, 3, 4, 5, 6, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29, 30, 31, 32, 33, 34, 35, 36, 37, 38, "
+                + "39, 40}", ranges.toString());
+    }
+
+    @Test
+    public void testBuildersCanBeReused() {
+        RangeIntIterable.Builder builder = RangeIntIterable.builder(1).add(1, 2);
+        RangeIntIterable first = builder.build();
+        builder.add(3, 5);
+        RangeIntIterable second = builder.add(9).build();
+
+        assertEquals("{1, 2}", first.toString());
+        assertEquals("{1, 2, 3, 4, 5, 9}", second.toString());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testInvalidRange() {
+        RangeIntIterable.builder().add(10, 5);
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testIteratorExhausted() {
+        IntIterator it = RangeIntIterable.builder().add(7).build().intIterator();
+        assertEquals(7, it.nextInt());
+        it.nextInt();
+    }
+
+    private static BitSet randomRanges(Random r, RangeIntIterable.Builder builder) {
+        BitSet bs = new BitSet();
+        for (int i = r.nextInt(20); i > 0; i--) {
+            int start = 1 + r.nextInt(300);
+            int end = start + r.nextInt(r.nextBoolean() ? 2 : 40);
+            builder.add(start, end);
+            bs.set(start, end + 1);
+        }
+        return bs;
+    }
+
+    @Test
+    public void testMatchesBitSet() {
+        for (int n = 0; n < 200; n++) {
+            RangeIntIterable.Builder builder = RangeIntIterable.builder();
+            BitSet bs = randomRanges(r, builder);
+            RangeIntIterable ranges = builder.build();
+            BitSetIntIterable expected = new BitSetIntIterable(bs);
+
+            assertEquals(expected, ranges);
+            assertEquals(ranges, expected);
+            assertEquals(expected.hashCode(), ranges.hashCode());
+            assertEquals(bs.isEmpty(), ranges.isEmpty());
+            for (int i = 0; i < 360; i++) {
+                assertEquals(bs.get(i), ranges.contains(i));
+            }
+        }
+    }
+
+    @Test
+    public void testFlipMatchesBitSet() {
+        for (int n = 0; n < 200; n++) {
+            RangeIntIterable.Builder builder = RangeIntIterable.builder();
+            BitSet bs = randomRanges(r, builder);
+            int from = 1 + r.nextInt(100);
+            int to = from + r.nextInt(300);
+
+            bs.flip(from, to);
+            assertEquals(new BitSetIntIterable(bs), builder.build().flip(from, to));
+        }
+    }
+
+    @Test
+    public void testEqualsOtherRanges() {
+        RangeIntIterable a = RangeIntIterable.builder().add(1, 3).add(5).build();
+        RangeIntIterable b = RangeIntIterable.builder().add(5).add(3).add(1, 2).build();
+
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertFalse(a.equals(RangeIntIterable.builder().add(1, 5).build()));
+    }
+}
@@ -21,6 +21,8 @@ package com.iabtcf.v2;
  */
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
 
 import java.util.BitSet;
 
@@ -68,4 +70,50 @@ public class PublisherRestrictionTest {
 
         assertEquals(pub1.hashCode(), pub2.hashCode());
     }
+
+    @Test
+    public void testLazyVendorIds() {
+        IntIterable vendorIds = wrap(1, 2);
+        int[] calls = {0};
+        PublisherRestriction lazy = new PublisherRestriction(1, RestrictionType.NOT_ALLOWED, () -> {
+            calls[0]++;
+            return vendorIds;
+        });
+
+        assertEquals(0, calls[0]);
+        assertEquals(1, lazy.getPurposeId());
+        assertEquals(RestrictionType.NOT_ALLOWED, lazy.getRestrictionType());
+        assertEquals(0, calls[0]);
+
+        assertSame(vendorIds, lazy.getVendorIds());
+        assertSame(vendorIds, lazy.getVendorIds());
+        assertEquals(1, calls[0]);
+
+        PublisherRestriction eager = new PublisherRestriction(1, RestrictionType.NOT_ALLOWED, wrap(1, 2));
+        assertEquals(eager, lazy);
+        assertEquals(lazy, eager);
+        assertEquals(eager.hashCode(), lazy.hashCode());
+    }
+
+    @Test
+    public void testFailingSupplierIsRetried() {
+        IntIterable vendorIds = wrap(1, 2);
+        int[] calls = {0};
+        PublisherRestriction lazy = new PublisherRestriction(1, RestrictionType.NOT_ALLOWED, () -> {
+            if (calls[0]++ == 0) {
+                throw new IndexOutOfBoundsException();
+            }
+            return vendorIds;
+        });
+
+        try {
+            lazy.getVendorIds();
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+        assertSame(vendorIds, lazy.getVendorIds());
+        assertSame(vendorIds, lazy.getVendorIds());
+        assertEquals(2, calls[0]);
+    }
 }
@@ -0,0 +1,131 @@
+package com.iabtcf.v2;
+
+/*-
+ * #%L
+ * IAB TCF Core Library
+ * %%
+ * Copyright (C) 2020 IAB Technology Laboratory, Inc
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import static com.iabtcf.v2.PublisherRestrictionTest.wrap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.iabtcf.utils.RangeIntIterable;
+
+public class PublisherRestrictionsTest {
+    private final PublisherRestriction p1Consent =
+            new PublisherRestriction(1, RestrictionType.REQUIRE_CONSENT, wrap(5, 10, 11, 12));
+    private final PublisherRestriction p2NotAllowed =
+            new PublisherRestriction(2, RestrictionType.NOT_ALLOWED, wrap(10, 700));
+    private final PublisherRestriction p2LegitimateInterest = new PublisherRestriction(2,
+            RestrictionType.REQUIRE_LEGITIMATE_INTEREST, RangeIntIterable.builder().add(20, 30).build());
+    private final PublisherRestriction p1Duplicate =
+            new PublisherRestriction(1, RestrictionType.NOT_ALLOWED, wrap(5, 6));
+
+    private final PublisherRestrictions index =
+            PublisherRestrictions.of(Arrays.asList(p1Consent, p2NotAllowed, p2LegitimateInterest, p1Duplicate));
+
+    @Test
+    public void testGetRestrictionType() {
+        assertEquals(RestrictionType.NOT_ALLOWED, index.getRestrictionType(5, 1));
+        assertSame(p1Duplicate, index.getRestriction(5, 1));
+        assertEquals(RestrictionType.REQUIRE_CONSENT, index.getRestrictionType(12, 1));
+        assertEquals(RestrictionType.NOT_ALLOWED, index.getRestrictionType(6, 1));
+        assertEquals(RestrictionType.NOT_ALLOWED, index.getRestrictionType(700, 2));
+        assertEquals(RestrictionType.REQUIRE_LEGITIMATE_INTEREST, index.getRestrictionType(25, 2));
+        assertSame(p2NotAllowed, index.getRestriction(10, 2));
+        assertTrue(index.isRestricted(30, 2));
+
+        assertNull(index.getRestrictionType(13, 1));
+        assertNull(index.getRestrictionType(700, 1));
+        assertNull(index.getRestrictionType(5, 3));
+        assertNull(index.getRestrictionType(5, 0));
+        assertNull(index.getRestrictionType(-1, 1));
+        assertNull(index.getRestrictionType(5, -1));
+        assertFalse(index.isRestricted(1000, 2));
+    }
+
+    @Test
+    public void testGetVendorIds() {
+        assertEquals(wrap(5, 6, 10, 11, 12), index.getVendorIds(1));
+        assertEquals(wrap(10, 700), index.getVendorIds(2, RestrictionType.NOT_ALLOWED));
+        assertEquals(wrap(5, 6, 10, 700), index.getVendorIds(RestrictionType.NOT_ALLOWED));
+        assertSame(p2LegitimateInterest.getVendorIds(),
+                index.getVendorIds(RestrictionType.REQUIRE_LEGITIMATE_INTEREST));
+        assertTrue(index.getVendorIds(3).isEmpty());
+        assertTrue(index.getVendorIds(1, RestrictionType.UNDEFINED).isEmpty());
+        assertTrue(index.getVendorIds(RestrictionType.UNDEFINED).isEmpty());
+    }
+
+    @Test
+    public void testGetRestrictionsOfVendor() {
+        assertEquals(Arrays.asList(p1Consent, p2NotAllowed), index.getRestrictions(10));
+        assertEquals(Arrays.asList(p1Duplicate), index.getRestrictions(5));
+        assertEquals(Collections.emptyList(), index.getRestrictions(4));
+        assertEquals(4, index.getRestrictions().size());
+    }
+
+    @Test
+    public void testConflictingRestrictionsAreNotAllowed() {
+        PublisherRestriction p2Consent = new PublisherRestriction(2, RestrictionType.REQUIRE_CONSENT, wrap(25, 40));
+        PublisherRestrictions conflicting = PublisherRestrictions.of(Arrays.asList(p2LegitimateInterest, p2Consent));
+
+        assertEquals(RestrictionType.NOT_ALLOWED, conflicting.getRestrictionType(25, 2));
+        assertSame(p2Consent, conflicting.getRestriction(25, 2));
+        assertTrue(conflicting.isRestricted(25, 2));
+        assertEquals(Arrays.asList(p2Consent), conflicting.getRestrictions(25));
+        assertEquals(RestrictionType.REQUIRE_CONSENT, conflicting.getRestrictionType(40, 2));
+        assertEquals(RestrictionType.REQUIRE_LEGITIMATE_INTEREST, conflicting.getRestrictionType(20, 2));
+    }
+
+    @Test
+    public void testDecodesOnlyQueriedPurposes() {
+        AtomicInteger decoded = new AtomicInteger();
+        PublisherRestriction p3 = new PublisherRestriction(3, RestrictionType.NOT_ALLOWED, () -> {
+            decoded.incrementAndGet();
+            return wrap(5);
+        });
+        PublisherRestrictions lazy = PublisherRestrictions.of(Arrays.asList(p1Consent, p3));
+
+        assertEquals(RestrictionType.REQUIRE_CONSENT, lazy.getRestrictionType(5, 1));
+        assertTrue(lazy.getVendorIds(RestrictionType.REQUIRE_CONSENT).contains(10));
+        assertEquals(0, decoded.get());
+
+        assertEquals(RestrictionType.NOT_ALLOWED, lazy.getRestrictionType(5, 3));
+        assertEquals(1, decoded.get());
+    }
+
+    @Test
+    public void testEmpty() {
+        assertNull(PublisherRestrictions.EMPTY.getRestrictionType(1, 1));
+        assertTrue(PublisherRestrictions.EMPTY.getVendorIds(1).isEmpty());
+        assertTrue(PublisherRestrictions.EMPTY.getRestrictions(1).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativePurpose() {
+        PublisherRestrictions.of(Arrays.asList(new PublisherRestriction(-1, RestrictionType.NOT_ALLOWED, wrap(1))));
+    }
+}